@@ -0,0 +1,169 @@
+package com.example.encryptiondemo.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects per-scenario latencies of successful requests in HDR histograms; failed requests (non-2xx, timeouts)
+ * are only counted, so a build that fails fast cannot look faster than one that works.
+ * Interval histograms are written to an .hlog file (readable by HistogramLogProcessor / HdrHistogram plotters)
+ * and a percentile summary is written next to it so runs of different builds can be compared.
+ */
+public class LatencyReport {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final Map<Scenario, Recorder> recorders = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, Histogram> totals = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, AtomicLong> errors = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, AtomicLong> intervalErrors = new EnumMap<>(Scenario.class);
+    private final Path outputDirectory;
+    private final String label;
+
+    private HistogramLogWriter logWriter;
+    private long measurementStartMillis;
+    private long measurementEndMillis;
+
+    public LatencyReport(Iterable<Scenario> scenarios, Path outputDirectory, String label) {
+        for (Scenario scenario : scenarios) {
+            recorders.put(scenario, new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS));
+            Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+            total.setTag(scenario.getKey());
+            totals.put(scenario, total);
+            errors.put(scenario, new AtomicLong());
+            intervalErrors.put(scenario, new AtomicLong());
+        }
+        this.outputDirectory = outputDirectory;
+        this.label = label;
+    }
+
+    /**
+     * Record one request. Safe to call concurrently from worker threads.
+     */
+    public void record(Scenario scenario, long latencyNanos, boolean success) {
+        if (success) {
+            recorders.get(scenario).recordValue(Math.min(latencyNanos, HIGHEST_TRACKABLE_NANOS));
+        } else {
+            errors.get(scenario).incrementAndGet();
+            intervalErrors.get(scenario).incrementAndGet();
+        }
+    }
+
+    /**
+     * Discard everything recorded during warmup and open the histogram log
+     */
+    public void startMeasurement() throws IOException {
+        for (Recorder recorder : recorders.values()) {
+            recorder.reset();
+        }
+        for (AtomicLong errorCount : errors.values()) {
+            errorCount.set(0);
+        }
+        for (AtomicLong errorCount : intervalErrors.values()) {
+            errorCount.set(0);
+        }
+        measurementStartMillis = System.currentTimeMillis();
+
+        Files.createDirectories(outputDirectory);
+        File logFile = outputDirectory.resolve(label + ".hlog").toFile();
+        logWriter = new HistogramLogWriter(logFile);
+        logWriter.outputComment("encryption-demo load test: " + label);
+        logWriter.outputLogFormatVersion();
+        logWriter.outputStartTime(measurementStartMillis);
+        logWriter.setBaseTime(measurementStartMillis);
+        logWriter.outputLegend();
+    }
+
+    /**
+     * Flush the current interval of every scenario to the log and print a progress line
+     */
+    public void logInterval() {
+        StringBuilder line = new StringBuilder(String.format("[%6.1fs]",
+            (System.currentTimeMillis() - measurementStartMillis) / 1000.0));
+        for (Map.Entry<Scenario, Recorder> entry : recorders.entrySet()) {
+            Histogram interval = entry.getValue().getIntervalHistogram();
+            interval.setTag(entry.getKey().getKey());
+            logWriter.outputIntervalHistogram(interval);
+            totals.get(entry.getKey()).add(interval);
+
+            double seconds = Math.max(1, interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0;
+            line.append(String.format("  %s: %.0f req/s p99=%.2fms errors=%d", entry.getKey().getKey(),
+                interval.getTotalCount() / seconds, interval.getValueAtPercentile(99) / NANOS_PER_MILLI,
+                intervalErrors.get(entry.getKey()).getAndSet(0)));
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * Flush the last interval, print the summary and write it to &lt;label&gt;-summary.txt
+     */
+    public void finish() throws IOException {
+        logInterval();
+        measurementEndMillis = System.currentTimeMillis();
+        logWriter.close();
+
+        Path summaryFile = outputDirectory.resolve(label + "-summary.txt");
+        try (PrintStream summary = new PrintStream(new FileOutputStream(summaryFile.toFile()))) {
+            printSummary(summary, true);
+        }
+        printSummary(System.out, false);
+        System.out.println();
+        System.out.println("Histogram log: " + outputDirectory.resolve(label + ".hlog"));
+        System.out.println("Summary:       " + summaryFile);
+    }
+
+    private void printSummary(PrintStream out, boolean withDistribution) {
+        double seconds = Math.max(1, measurementEndMillis - measurementStartMillis) / 1000.0;
+        Histogram combined = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        long combinedErrors = 0;
+
+        out.printf("Load test '%s' - %.1fs measured, latencies of successful requests in ms%n", label, seconds);
+        out.printf("%-12s %10s %8s %7s %10s %9s %9s %9s %9s %9s%n",
+            "scenario", "requests", "errors", "error%", "ok/s", "p50", "p90", "p99", "p99.9", "max");
+        for (Map.Entry<Scenario, Histogram> entry : totals.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long errorCount = errors.get(entry.getKey()).get();
+            printRow(out, entry.getKey().getKey(), histogram, errorCount, seconds);
+            combined.add(histogram);
+            combinedErrors += errorCount;
+        }
+        printRow(out, "all", combined, combinedErrors, seconds);
+
+        if (withDistribution) {
+            for (Map.Entry<Scenario, Histogram> entry : totals.entrySet()) {
+                out.println();
+                out.println("Percentile distribution for successful " + entry.getKey().getKey() + " requests (ms):");
+                entry.getValue().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+        }
+    }
+
+    private void printRow(PrintStream out, String name, Histogram histogram, long errorCount, double seconds) {
+        long requests = histogram.getTotalCount() + errorCount;
+        out.printf("%-12s %10d %8d %7.2f %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+            name,
+            requests,
+            errorCount,
+            requests > 0 ? errorCount * 100.0 / requests : 0,
+            histogram.getTotalCount() / seconds,
+            histogram.getValueAtPercentile(50) / NANOS_PER_MILLI,
+            histogram.getValueAtPercentile(90) / NANOS_PER_MILLI,
+            histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+            histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+            histogram.getMaxValue() / NANOS_PER_MILLI);
+    }
+}
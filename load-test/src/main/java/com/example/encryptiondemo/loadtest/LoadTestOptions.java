@@ -0,0 +1,136 @@
+package com.example.encryptiondemo.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line options for the load generator.
+ * Arguments use the form --name=value, e.g. --concurrency=32 --duration=60s --mix=user=5,department=3,role=2
+ */
+public class LoadTestOptions {
+
+    private String baseUrl = "http://localhost:8080";
+    private String key = System.getenv().getOrDefault("ENCRYPTION_KEY", "VRYnbfWvjr0j4K9iZDnvjQ==");
+    private int concurrency = 16;
+    private Duration warmup = Duration.ofSeconds(10);
+    private Duration duration = Duration.ofSeconds(30);
+    private Duration reportInterval = Duration.ofSeconds(5);
+    private int ratePerWorker = 0;
+    private long idRange = 1000;
+    private Map<Scenario, Integer> mix = parseMix("user=1,department=1,role=1");
+    private Path output = Path.of("target", "load-test");
+    private String label = "run";
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "', expected --name=value");
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (name) {
+                case "url" -> options.baseUrl = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "key" -> options.key = value;
+                case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "warmup" -> options.warmup = parseDuration(value);
+                case "duration" -> options.duration = parseDuration(value);
+                case "report-interval" -> options.reportInterval = parseDuration(value);
+                case "rate" -> options.ratePerWorker = Integer.parseInt(value);
+                case "ids" -> options.idRange = Long.parseLong(value);
+                case "mix" -> options.mix = parseMix(value);
+                case "output" -> options.output = Path.of(value);
+                case "label" -> options.label = value;
+                default -> throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.concurrency < 1) {
+            throw new IllegalArgumentException("--concurrency must be at least 1");
+        }
+        if (options.idRange < 1 || options.idRange > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("--ids must be between 1 and " + Integer.MAX_VALUE);
+        }
+        return options;
+    }
+
+    /**
+     * Parse durations like 30s, 2m, 500ms or a plain number of seconds
+     */
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        } else if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        } else if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    /**
+     * Parse a weighted payload mix like user=5,department=3,role=2
+     */
+    static Map<Scenario, Integer> parseMix(String value) {
+        Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(Scenario.fromKey(parts[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("--mix must contain at least one scenario with a positive weight");
+        }
+        return mix;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Duration getReportInterval() {
+        return reportInterval;
+    }
+
+    /**
+     * Target requests per second for each worker, 0 means closed loop (as fast as possible)
+     */
+    public int getRatePerWorker() {
+        return ratePerWorker;
+    }
+
+    public long getIdRange() {
+        return idRange;
+    }
+
+    public Map<Scenario, Integer> getMix() {
+        return mix;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.encryptiondemo.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load generator for the encrypted endpoints of a locally started encryption demo.
+ *
+ * Start the application first (mvn spring-boot:run), then from the load-test directory:
+ *   mvn compile exec:java -Dexec.args="--concurrency=32 --duration=60s --mix=user=5,department=3,role=2 --label=baseline"
+ *
+ * Payloads are encrypted exactly like the browser client does, sent through Tomcat, the encryption filter
+ * and Jackson, and the round-trip latency is recorded in HDR histograms per scenario.
+ */
+public class LoadTestRunner {
+
+    private final LoadTestOptions options;
+    private final PayloadEncryptor encryptor;
+    private final HttpClient httpClient;
+    private final Scenario[] weightedScenarios;
+    private final LatencyReport report;
+
+    // Ids of the departments created before the run, the server allocates them and PUT never creates one
+    private long[] departmentIds = new long[0];
+    private volatile boolean running = true;
+
+    public LoadTestRunner(LoadTestOptions options) {
+        this.options = options;
+        this.encryptor = new PayloadEncryptor(options.getKey());
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+        this.weightedScenarios = buildWeightedScenarios(options.getMix());
+        this.report = new LatencyReport(options.getMix().keySet(), options.getOutput(), options.getLabel());
+    }
+
+    public static void main(String[] args) {
+        try {
+            LoadTestOptions options = LoadTestOptions.parse(args);
+            new LoadTestRunner(options).run();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    public void run() throws Exception {
+        checkApplicationIsUp();
+        if (options.getMix().containsKey(Scenario.UPDATE_DEPARTMENT)) {
+            departmentIds = seedDepartments();
+        }
+
+        System.out.println("Target:      " + options.getBaseUrl());
+        System.out.println("Concurrency: " + options.getConcurrency()
+            + (options.getRatePerWorker() > 0 ? " workers at " + options.getRatePerWorker() + " req/s each" : " workers, closed loop"));
+        System.out.println("Mix:         " + options.getMix());
+        System.out.println("Warmup " + options.getWarmup().toSeconds() + "s, measuring " + options.getDuration().toSeconds() + "s");
+
+        CountDownLatch finished = new CountDownLatch(options.getConcurrency());
+        for (int i = 0; i < options.getConcurrency(); i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    runWorker();
+                } finally {
+                    finished.countDown();
+                }
+            }, "load-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        Thread.sleep(options.getWarmup().toMillis());
+        report.startMeasurement();
+
+        long measurementEnd = System.nanoTime() + options.getDuration().toNanos();
+        long intervalNanos = options.getReportInterval().toNanos();
+        while (true) {
+            long remaining = measurementEnd - System.nanoTime();
+            if (remaining <= intervalNanos) {
+                TimeUnit.NANOSECONDS.sleep(Math.max(0, remaining));
+                break;
+            }
+            TimeUnit.NANOSECONDS.sleep(intervalNanos);
+            report.logInterval();
+        }
+
+        running = false;
+        report.finish();
+        finished.await(10, TimeUnit.SECONDS);
+    }
+
+    private void runWorker() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long intervalNanos = options.getRatePerWorker() > 0 ? TimeUnit.SECONDS.toNanos(1) / options.getRatePerWorker() : 0;
+        long nextStart = System.nanoTime();
+
+        while (running) {
+            Scenario scenario = weightedScenarios[random.nextInt(weightedScenarios.length)];
+            long id = scenario == Scenario.UPDATE_DEPARTMENT
+                ? departmentIds[random.nextInt(departmentIds.length)]
+                : random.nextLong(1, options.getIdRange() + 1);
+            String encryptedBody = encryptor.encrypt(scenario.json(id, random));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(options.getBaseUrl() + scenario.path(id)))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .method(scenario.getMethod(), HttpRequest.BodyPublishers.ofString(encryptedBody))
+                .build();
+
+            // With a target rate, latency is measured from the intended start time so that a stalled
+            // server is not hidden by the generator backing off (coordinated omission)
+            long start;
+            if (intervalNanos > 0) {
+                long now = System.nanoTime();
+                if (nextStart > now) {
+                    sleepNanos(nextStart - now);
+                }
+                start = nextStart;
+                nextStart += intervalNanos;
+            } else {
+                start = System.nanoTime();
+            }
+
+            boolean success;
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                success = response.statusCode() >= 200 && response.statusCode() < 300;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                success = false;
+            }
+            report.record(scenario, System.nanoTime() - start, success);
+        }
+    }
+
+    private void checkApplicationIsUp() throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(options.getBaseUrl() + "/api/hello"))
+            .timeout(Duration.ofSeconds(5))
+            .GET()
+            .build();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("GET /api/hello returned " + response.statusCode());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Application is not reachable at " + options.getBaseUrl()
+                + ", start it with mvn spring-boot:run first", e);
+        }
+    }
+
+    /**
+     * Create --ids departments for the department scenario to update, outside the measured run
+     */
+    private long[] seedDepartments() throws IOException, InterruptedException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] ids = new long[Math.toIntExact(options.getIdRange())];
+        for (int i = 0; i < ids.length; i++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(options.getBaseUrl() + "/department/create"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(encryptor.encrypt(Scenario.UPDATE_DEPARTMENT.json(0, random))))
+                .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            JsonNode id = response.statusCode() == 200
+                ? objectMapper.readTree(response.body()).path("data").path("department").path("id")
+                : null;
+            if (id == null || !id.canConvertToLong()) {
+                throw new IllegalStateException("POST /department/create returned " + response.statusCode()
+                    + ", cannot seed departments");
+            }
+            ids[i] = id.asLong();
+        }
+        System.out.println("Seeded " + ids.length + " departments");
+        return ids;
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Expand the weighted mix into a lookup table so picking a scenario is a single random index
+     */
+    private static Scenario[] buildWeightedScenarios(Map<Scenario, Integer> mix) {
+        List<Scenario> table = new ArrayList<>();
+        for (Map.Entry<Scenario, Integer> entry : mix.entrySet()) {
+            for (int i = 0; i < entry.getValue(); i++) {
+                table.add(entry.getKey());
+            }
+        }
+        return table.toArray(new Scenario[0]);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.encryptiondemo.loadtest;
+
+import org.apache.commons.codec.binary.Base64;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+
+/**
+ * Encrypts request payloads in the same wire format as EncryptionUtil:
+ * Base64(IV || AES/CBC/PKCS5Padding ciphertext)
+ */
+public class PayloadEncryptor {
+
+    private static final String ALGORITHM = "AES";
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    private static final int IV_LENGTH = 16; // AES block size
+
+    private final SecretKeySpec secretKey;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public PayloadEncryptor(String base64Key) {
+        this.secretKey = new SecretKeySpec(Base64.decodeBase64(base64Key), ALGORITHM);
+    }
+
+    public String encrypt(String plainText) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(iv));
+            byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+
+            // Prepend IV to encrypted data
+            byte[] encryptedWithIv = new byte[IV_LENGTH + encryptedBytes.length];
+            System.arraycopy(iv, 0, encryptedWithIv, 0, IV_LENGTH);
+            System.arraycopy(encryptedBytes, 0, encryptedWithIv, IV_LENGTH, encryptedBytes.length);
+
+            return Base64.encodeBase64String(encryptedWithIv);
+        } catch (Exception e) {
+            throw new RuntimeException("Encryption failed", e);
+        }
+    }
+}
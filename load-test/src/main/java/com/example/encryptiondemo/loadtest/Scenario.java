@@ -0,0 +1,119 @@
+package com.example.encryptiondemo.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Encrypted endpoints driven by the load generator.
+ * Each scenario builds a realistic plain JSON body which is encrypted before sending.
+ */
+public enum Scenario {
+
+    CREATE_USER("user", "POST") {
+        @Override
+        String path(long id) {
+            return "/api/user";
+        }
+
+        @Override
+        Map<String, Object> body(long id, ThreadLocalRandom random) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("name", "Load User " + id);
+            body.put("email", "load.user" + id + "@example.com");
+            body.put("message", randomText(random, 32, 512));
+            return body;
+        }
+    },
+
+    UPDATE_DEPARTMENT("department", "PUT") {
+        @Override
+        String path(long id) {
+            return "/department/update/" + id;
+        }
+
+        @Override
+        Map<String, Object> body(long id, ThreadLocalRandom random) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("name", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            body.put("description", randomText(random, 16, 256));
+            body.put("headcount", random.nextInt(1, 500));
+            return body;
+        }
+    },
+
+    UPDATE_ROLE("role", "PUT") {
+        @Override
+        String path(long id) {
+            return "/admin/user/" + id + "/role";
+        }
+
+        @Override
+        Map<String, Object> body(long id, ThreadLocalRandom random) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("role", ROLES[random.nextInt(ROLES.length)]);
+            body.put("reason", randomText(random, 8, 128));
+            return body;
+        }
+    };
+
+    private static final String[] DEPARTMENTS = {"IT", "HR", "Finance", "Marketing", "Sales", "Legal"};
+    private static final String[] ROLES = {"USER", "ADMIN", "MANAGER", "AUDITOR"};
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyz ABCDEFGHIJKLMNOPQRSTUVWXYZ 0123456789";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String key;
+    private final String method;
+
+    Scenario(String key, String method) {
+        this.key = key;
+        this.method = method;
+    }
+
+    /**
+     * Short name used in the --mix option and in the report, e.g. user=5,department=3,role=2
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    abstract String path(long id);
+
+    abstract Map<String, Object> body(long id, ThreadLocalRandom random);
+
+    /**
+     * Build the plain JSON body for the given record id
+     */
+    public String json(long id, ThreadLocalRandom random) {
+        try {
+            return OBJECT_MAPPER.writeValueAsString(body(id, random));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + key + " payload", e);
+        }
+    }
+
+    public static Scenario fromKey(String key) {
+        for (Scenario scenario : values()) {
+            if (scenario.key.equalsIgnoreCase(key)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario '" + key + "', expected one of user, department, role");
+    }
+
+    private static String randomText(ThreadLocalRandom random, int minLength, int maxLength) {
+        int length = random.nextInt(minLength, maxLength + 1);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
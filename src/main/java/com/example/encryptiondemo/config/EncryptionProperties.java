@@ -20,6 +20,54 @@ public class EncryptionProperties {
      */
     private boolean enabled = true;
     
+    /**
+     * Size in bytes of the pooled buffers holding decrypted request bodies.
+     * Larger bodies get a one-off buffer that is not pooled.
+     */
+    private int bufferSize = 8192;
+    
+    /**
+     * Maximum number of idle buffers kept in the pool
+     */
+    private int bufferPoolSize = 64;
+    
+    /**
+     * Whether pooled buffers are allocated off-heap (direct) instead of on the heap
+     */
+    private boolean directBuffers = false;
+    
+    /**
+     * Whether encrypted bodies are read with Servlet non-blocking I/O and decrypted as they arrive,
+     * so slow clients don't hold a container thread
+     */
+    private boolean nonBlocking = true;
+    
+    /**
+     * Largest encrypted (Base64) request body accepted, in bytes. Larger bodies are rejected with 413.
+     */
+    private int maxBodySize = 1024 * 1024;
+    
+    /**
+     * Name of the JCE provider to use (e.g. SunJCE, BC). Empty picks the fastest provider
+     * passing the startup known-answer test.
+     */
+    private String provider = "";
+    
+    /**
+     * Total time each candidate provider is measured at startup, in milliseconds, split evenly over the rounds
+     */
+    private long providerBenchmarkMillis = 500;
+    
+    /**
+     * Measured rounds per candidate; candidates take turns each round and are compared by their median
+     */
+    private int providerBenchmarkRounds = 5;
+    
+    /**
+     * Warmup shared by all candidates before any round is measured, in milliseconds
+     */
+    private long providerWarmupMillis = 500;
+    
     public List<String> getEncryptedPaths() {
         return encryptedPaths;
     }
@@ -35,4 +83,76 @@ public class EncryptionProperties {
     public void setEnabled(boolean enabled) {
         this.enabled = enabled;
     }
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+    
+    public int getBufferPoolSize() {
+        return bufferPoolSize;
+    }
+    
+    public void setBufferPoolSize(int bufferPoolSize) {
+        this.bufferPoolSize = bufferPoolSize;
+    }
+    
+    public boolean isDirectBuffers() {
+        return directBuffers;
+    }
+    
+    public void setDirectBuffers(boolean directBuffers) {
+        this.directBuffers = directBuffers;
+    }
+    
+    public boolean isNonBlocking() {
+        return nonBlocking;
+    }
+    
+    public void setNonBlocking(boolean nonBlocking) {
+        this.nonBlocking = nonBlocking;
+    }
+    
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+    
+    public void setMaxBodySize(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+    
+    public String getProvider() {
+        return provider;
+    }
+    
+    public void setProvider(String provider) {
+        this.provider = provider;
+    }
+    
+    public long getProviderBenchmarkMillis() {
+        return providerBenchmarkMillis;
+    }
+    
+    public void setProviderBenchmarkMillis(long providerBenchmarkMillis) {
+        this.providerBenchmarkMillis = providerBenchmarkMillis;
+    }
+    
+    public int getProviderBenchmarkRounds() {
+        return providerBenchmarkRounds;
+    }
+    
+    public void setProviderBenchmarkRounds(int providerBenchmarkRounds) {
+        this.providerBenchmarkRounds = providerBenchmarkRounds;
+    }
+    
+    public long getProviderWarmupMillis() {
+        return providerWarmupMillis;
+    }
+    
+    public void setProviderWarmupMillis(long providerWarmupMillis) {
+        this.providerWarmupMillis = providerWarmupMillis;
+    }
 }
@@ -1,6 +1,7 @@
 package com.example.encryptiondemo.config;
 
 import com.example.encryptiondemo.filter.EncryptionFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
@@ -30,6 +31,9 @@ public class FilterConfig {
         
         registration.setName("encryptionFilter");
         registration.setOrder(1);
+        // Non-blocking decryption finishes on an async dispatch
+        registration.setAsyncSupported(true);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
         return registration;
     }
 }
@@ -0,0 +1,64 @@
+package com.example.encryptiondemo.config;
+
+import com.example.encryptiondemo.store.EncryptedRecordStore;
+import com.example.encryptiondemo.util.EncryptionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class StoreConfig {
+
+    @Autowired
+    private StoreProperties storeProperties;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Bean(destroyMethod = "close")
+    public EncryptedRecordStore userStore() throws IOException {
+        return openStore("users");
+    }
+
+    @Bean(destroyMethod = "close")
+    public EncryptedRecordStore departmentStore() throws IOException {
+        return openStore("departments");
+    }
+
+    /**
+     * Background compaction of all record stores, stopped before the stores are closed
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService storeCompactionExecutor(List<EncryptedRecordStore> stores) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "record-store-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalMillis = storeProperties.getCompactionInterval().toMillis();
+        executor.scheduleWithFixedDelay(() -> {
+            for (EncryptedRecordStore store : stores) {
+                try {
+                    store.compact(storeProperties.getCompactionThreshold());
+                } catch (Exception e) {
+                    System.err.println("Compaction of record store '" + store.getName() + "' failed: " + e.getMessage());
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+
+    private EncryptedRecordStore openStore(String name) throws IOException {
+        Path directory = Path.of(storeProperties.getDirectory(), name);
+        return new EncryptedRecordStore(name, directory, storeProperties.getSegmentSize(),
+            storeProperties.isSyncWrites(), encryptionUtil);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.encryptiondemo.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+@ConfigurationProperties(prefix = "app.store")
+public class StoreProperties {
+
+    /**
+     * Directory holding one sub-directory of segment files per record store
+     */
+    private String directory = "data";
+
+    /**
+     * Size in bytes of each memory-mapped segment file
+     */
+    private int segmentSize = 8 * 1024 * 1024;
+
+    /**
+     * Whether every write is forced to disk before returning.
+     * Without it a crash can lose the most recent writes, but never corrupts older records.
+     */
+    private boolean syncWrites = false;
+
+    /**
+     * How often sealed segments are checked for compaction
+     */
+    private Duration compactionInterval = Duration.ofMinutes(1);
+
+    /**
+     * Fraction of dead bytes (overwritten, deleted) at which a sealed segment is compacted
+     */
+    private double compactionThreshold = 0.5;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isSyncWrites() {
+        return syncWrites;
+    }
+
+    public void setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    public void setCompactionInterval(Duration compactionInterval) {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+}
@@ -1,21 +1,26 @@
 package com.example.encryptiondemo.controller;
 
 import com.example.encryptiondemo.dto.ApiResponse;
+import com.example.encryptiondemo.dto.UserRecord;
 import com.example.encryptiondemo.dto.UserRequest;
+import com.example.encryptiondemo.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class ApiController {
     
+    @Autowired
+    private UserService userService;
+    
     @GetMapping("/hello")
     public ApiResponse getHello() {
         return new ApiResponse(true, "Hello from GET endpoint!", 
@@ -24,18 +29,7 @@ public class ApiController {
 
     @GetMapping("/users")
     public Map<String, Object> getUsers() {
-        List<Map<String, Object>> users = new ArrayList<>();
-        
-        // Sample data for DataTable
-        for (int i = 1; i <= 10; i++) {
-            Map<String, Object> user = new HashMap<>();
-            user.put("id", i);
-            user.put("name", "User " + i);
-            user.put("email", "user" + i + "@example.com");
-            user.put("message", "Sample message for user " + i);
-            user.put("created", LocalDateTime.now().minusDays(i).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
-            users.add(user);
-        }
+        List<UserRecord> users = userService.findAllUsers();
         
         // Return data in DataTables expected format
         Map<String, Object> response = new HashMap<>();
@@ -50,22 +44,41 @@ public class ApiController {
     @PostMapping("/user")
     public ApiResponse createUser(@RequestBody UserRequest userRequest) {
         System.out.println("Received user data: " + userRequest);
+        UserRecord user = userService.createUser(userRequest);
         
         Map<String, Object> responseData = new HashMap<>();
-        responseData.put("user", userRequest);
+        responseData.put("user", user);
         responseData.put("timestamp", LocalDateTime.now());
         responseData.put("method", "POST");
         
         return new ApiResponse(true, "User created successfully!", responseData);
     }
     
+    @PostMapping("/user/async")
+    public CompletableFuture<ApiResponse> createUserAsync(@RequestBody UserRequest userRequest) {
+        System.out.println("Received async user data: " + userRequest);
+        
+        // Completed off the request thread; the encryption filter keeps the decrypted body until the async cycle ends
+        return CompletableFuture.supplyAsync(() -> {
+            UserRecord user = userService.createUser(userRequest);
+            
+            Map<String, Object> responseData = new HashMap<>();
+            responseData.put("user", user);
+            responseData.put("timestamp", LocalDateTime.now());
+            responseData.put("method", "POST");
+            
+            return new ApiResponse(true, "User created asynchronously!", responseData);
+        });
+    }
+    
     @PutMapping("/user/{id}")
     public ApiResponse updateUser(@PathVariable Long id, @RequestBody UserRequest userRequest) {
         System.out.println("Updating user " + id + " with data: " + userRequest);
+        UserRecord user = userService.updateUser(id, userRequest);
         
         Map<String, Object> responseData = new HashMap<>();
         responseData.put("userId", id);
-        responseData.put("user", userRequest);
+        responseData.put("user", user);
         responseData.put("timestamp", LocalDateTime.now());
         responseData.put("method", "PUT");
         
@@ -75,6 +88,9 @@ public class ApiController {
     @DeleteMapping("/user/{id}")
     public ApiResponse deleteUser(@PathVariable Long id) {
         System.out.println("Deleting user: " + id);
+        if (!userService.deleteUser(id)) {
+            return new ApiResponse(false, "User " + id + " not found");
+        }
         
         Map<String, Object> responseData = new HashMap<>();
         responseData.put("deletedUserId", id);
@@ -0,0 +1,29 @@
+package com.example.encryptiondemo.controller;
+
+import com.example.encryptiondemo.dto.ApiResponse;
+import com.example.encryptiondemo.store.InvalidRecordIdException;
+import com.example.encryptiondemo.store.RecordNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Maps the record store's own exceptions to the usual ApiResponse body; anything else keeps Spring's default handling
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+    
+    @ExceptionHandler(InvalidRecordIdException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiResponse handleInvalidRecordId(InvalidRecordIdException e) {
+        System.err.println("Rejected request: " + e.getMessage());
+        return new ApiResponse(false, e.getMessage());
+    }
+    
+    @ExceptionHandler(RecordNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ApiResponse handleRecordNotFound(RecordNotFoundException e) {
+        return new ApiResponse(false, e.getMessage());
+    }
+}
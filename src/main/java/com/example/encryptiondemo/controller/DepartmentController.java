@@ -1,6 +1,8 @@
 package com.example.encryptiondemo.controller;
 
 import com.example.encryptiondemo.dto.ApiResponse;
+import com.example.encryptiondemo.service.DepartmentService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -11,10 +13,13 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class DepartmentController {
     
+    @Autowired
+    private DepartmentService departmentService;
+    
     @GetMapping("/list")
     public ApiResponse getDepartments() {
         return new ApiResponse(true, "Departments retrieved successfully!", 
-            Map.of("departments", new String[]{"IT", "HR", "Finance", "Marketing"}, 
+            Map.of("departments", departmentService.findAllDepartments(), 
                    "timestamp", LocalDateTime.now(), 
                    "method", "GET", 
                    "path", "/department/list"));
@@ -23,9 +28,10 @@ public class DepartmentController {
     @PostMapping("/create")
     public ApiResponse createDepartment(@RequestBody Map<String, Object> departmentData) {
         System.out.println("Received department creation data: " + departmentData);
+        Map<String, Object> department = departmentService.createDepartment(departmentData);
         
         Map<String, Object> responseData = Map.of(
-            "department", departmentData,
+            "department", department,
             "timestamp", LocalDateTime.now(),
             "method", "POST",
             "path", "/department/create"
@@ -37,10 +43,11 @@ public class DepartmentController {
     @PutMapping("/update/{id}")
     public ApiResponse updateDepartment(@PathVariable Long id, @RequestBody Map<String, Object> departmentData) {
         System.out.println("Updating department " + id + " with data: " + departmentData);
+        Map<String, Object> department = departmentService.updateDepartment(id, departmentData);
         
         Map<String, Object> responseData = Map.of(
             "departmentId", id,
-            "department", departmentData,
+            "department", department,
             "timestamp", LocalDateTime.now(),
             "method", "PUT",
             "path", "/department/update/" + id
@@ -1,7 +1,10 @@
 package com.example.encryptiondemo.controller;
 
 import com.example.encryptiondemo.dto.ApiResponse;
+import com.example.encryptiondemo.dto.UserRecord;
 import com.example.encryptiondemo.dto.UserRequest;
+import com.example.encryptiondemo.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDateTime;
@@ -12,6 +15,9 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class UserController {
     
+    @Autowired
+    private UserService userService;
+    
     @GetMapping("/hello")
     public ApiResponse getHello() {
         return new ApiResponse(true, "Hello from User GET endpoint!", 
@@ -21,9 +27,10 @@ public class UserController {
     @PostMapping("/create")
     public ApiResponse createUser(@RequestBody UserRequest userRequest) {
         System.out.println("Received user creation data: " + userRequest);
+        UserRecord user = userService.createUser(userRequest);
         
         Map<String, Object> responseData = Map.of(
-            "user", userRequest,
+            "user", user,
             "timestamp", LocalDateTime.now(),
             "method", "POST",
             "path", "/user/create"
@@ -35,10 +42,11 @@ public class UserController {
     @PutMapping("/update/{id}")
     public ApiResponse updateUser(@PathVariable Long id, @RequestBody UserRequest userRequest) {
         System.out.println("Updating user " + id + " with data: " + userRequest);
+        UserRecord user = userService.updateUser(id, userRequest);
         
         Map<String, Object> responseData = Map.of(
             "userId", id,
-            "user", userRequest,
+            "user", user,
             "timestamp", LocalDateTime.now(),
             "method", "PUT",
             "path", "/user/update/" + id
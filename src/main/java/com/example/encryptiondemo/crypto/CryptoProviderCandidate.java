@@ -0,0 +1,14 @@
+package com.example.encryptiondemo.crypto;
+
+import java.security.Provider;
+
+/**
+ * SPI for offering a JCE provider to the startup self-benchmark of {@link CryptoProviderSelector}.
+ *
+ * Declare an implementation as a Spring bean to add a provider that is neither installed in the JVM
+ * nor registered under META-INF/services/java.security.Provider; those two sources are scanned already.
+ */
+public interface CryptoProviderCandidate {
+
+    Provider getProvider();
+}
@@ -0,0 +1,34 @@
+package com.example.encryptiondemo.crypto;
+
+import com.example.encryptiondemo.util.EncryptionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.security.Provider;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator endpoint (/actuator/cryptoprovider) showing which provider was selected at startup and why
+ */
+@Component
+@Endpoint(id = "cryptoprovider")
+public class CryptoProviderEndpoint {
+
+    @Autowired
+    private CryptoProviderSelector cryptoProviderSelector;
+
+    @ReadOperation
+    public Map<String, Object> cryptoProvider() {
+        Provider selected = cryptoProviderSelector.getSelectedProvider();
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("transformation", EncryptionUtil.TRANSFORMATION);
+        response.put("selected", selected != null ? selected.getName() : "JCE default");
+        response.put("selectedVersion", selected != null ? selected.getVersionStr() : null);
+        response.put("candidates", cryptoProviderSelector.getResults());
+        return response;
+    }
+}
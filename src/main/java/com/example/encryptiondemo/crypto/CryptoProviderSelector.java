@@ -0,0 +1,310 @@
+package com.example.encryptiondemo.crypto;
+
+import com.example.encryptiondemo.config.EncryptionProperties;
+import com.example.encryptiondemo.util.EncryptionUtil;
+import jakarta.annotation.PostConstruct;
+import org.apache.commons.codec.binary.Hex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Picks the JCE provider used by {@link EncryptionUtil}.
+ *
+ * At startup every candidate offering AES (installed providers, providers registered on the classpath through
+ * META-INF/services/java.security.Provider, e.g. Bouncy Castle, and {@link CryptoProviderCandidate} beans)
+ * must pass a known-answer test. If app.encryption.provider names one that passes, it is used as is. Otherwise,
+ * when more than one passes, they are benchmarked on the configured transformation: a shared warmup, then several
+ * interleaved rounds per candidate, and the highest median wins.
+ */
+@Component
+public class CryptoProviderSelector {
+
+    // NIST SP 800-38A, F.2.1 CBC-AES128.Encrypt
+    private static final String KAT_KEY = "2b7e151628aed2a6abf7158809cf4f3c";
+    private static final String KAT_IV = "000102030405060708090a0b0c0d0e0f";
+    private static final String KAT_PLAINTEXT = "6bc1bee22e409f96e93d7e117393172a" + "ae2d8a571e03ac9c9eb76fac45af8e51"
+        + "30c81c46a35ce411e5fbc1191a0a52ef" + "f69f2445df4f9b17ad2b417be66c3710";
+    private static final String KAT_CIPHERTEXT = "7649abac8119b246cee98e9b12e9197d" + "5086cb9b507219ee95db113a917678b2"
+        + "73bed6b8e3c1743b7116e69e22229516" + "3ff1caa1681fac09120eca307586e1a7";
+
+    // Typical encrypted JSON request body
+    private static final int BENCHMARK_PAYLOAD_SIZE = 1024;
+
+    @Autowired
+    private EncryptionProperties encryptionProperties;
+
+    @Autowired(required = false)
+    private List<CryptoProviderCandidate> candidateBeans = List.of();
+
+    private volatile Provider selectedProvider;
+    private volatile List<ProviderBenchmarkResult> results = List.of();
+    private int sink;
+
+    @PostConstruct
+    public void selectProvider() {
+        String configured = encryptionProperties.getProvider();
+        List<CandidateRun> runs = new ArrayList<>();
+        int passed = 0;
+        boolean configuredPassed = false;
+        for (Map.Entry<Provider, String> candidate : findCandidates().entrySet()) {
+            CandidateRun run = new CandidateRun(candidate.getKey(), candidate.getValue());
+            try {
+                knownAnswerTest(run.provider);
+                passed++;
+                configuredPassed |= run.provider.getName().equalsIgnoreCase(configured);
+            } catch (Exception e) {
+                run.error = e.getMessage();
+            }
+            runs.add(run);
+        }
+        // Timing only matters when there is a choice to make
+        if (passed > 1 && !configuredPassed) {
+            benchmark(runs);
+        }
+
+        List<ProviderBenchmarkResult> measured = new ArrayList<>();
+        Provider fastest = null;
+        Provider preferred = null;
+        double bestOperationsPerSecond = -1;
+
+        for (CandidateRun run : runs) {
+            Provider provider = run.provider;
+            ProviderBenchmarkResult result;
+            if (run.error != null) {
+                result = ProviderBenchmarkResult.failed(provider.getName(), provider.getVersionStr(), run.source, run.error);
+            } else if (run.samples != null) {
+                result = ProviderBenchmarkResult.measured(provider.getName(), provider.getVersionStr(), run.source, run.samples, BENCHMARK_PAYLOAD_SIZE);
+            } else {
+                result = ProviderBenchmarkResult.passed(provider.getName(), provider.getVersionStr(), run.source);
+            }
+            measured.add(result);
+            System.out.println(String.format("Crypto provider %s %s (%s): %s", provider.getName(), provider.getVersionStr(),
+                run.source, !result.isKnownAnswerTestPassed() ? "rejected, " + result.getError()
+                    : result.getRounds() == 0 ? "passed, not benchmarked"
+                    : String.format("%.0f ops/s median of %d rounds (spread %.1f%%), %.1f MB/s", result.getOperationsPerSecond(),
+                        result.getRounds(), result.getSpreadPercent(), result.getMegabytesPerSecond())));
+
+            if (!result.isKnownAnswerTestPassed()) {
+                continue;
+            }
+            if (provider.getName().equalsIgnoreCase(configured)) {
+                preferred = provider;
+            }
+            if (result.getOperationsPerSecond() > bestOperationsPerSecond) {
+                bestOperationsPerSecond = result.getOperationsPerSecond();
+                fastest = provider;
+            }
+        }
+
+        if (configured != null && !configured.isBlank() && preferred == null) {
+            System.err.println("Configured crypto provider '" + configured + "' is unavailable or failed its known-answer test, using the fastest one instead");
+        }
+        results = List.copyOf(measured);
+        selectedProvider = preferred != null ? preferred : fastest;
+        if (selectedProvider == null) {
+            System.err.println("No crypto provider passed the known-answer test for " + EncryptionUtil.TRANSFORMATION + ", falling back to the JCE default");
+        } else {
+            System.out.println("Using crypto provider " + selectedProvider.getName() + " for " + EncryptionUtil.TRANSFORMATION);
+        }
+    }
+
+    /**
+     * New cipher for {@link EncryptionUtil#TRANSFORMATION} from the selected provider
+     */
+    public Cipher createCipher() throws GeneralSecurityException {
+        Provider provider = selectedProvider;
+        return provider != null
+            ? Cipher.getInstance(EncryptionUtil.TRANSFORMATION, provider)
+            : Cipher.getInstance(EncryptionUtil.TRANSFORMATION);
+    }
+
+    /**
+     * @return the selected provider, or null if the JCE default lookup is used
+     */
+    public Provider getSelectedProvider() {
+        return selectedProvider;
+    }
+
+    public List<ProviderBenchmarkResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Providers offering AES keyed by instance, valued by where they were found; the first one seen per name wins
+     */
+    private Map<Provider, String> findCandidates() {
+        Map<String, Provider> byName = new LinkedHashMap<>();
+        Map<Provider, String> candidates = new LinkedHashMap<>();
+
+        for (Provider provider : Security.getProviders()) {
+            addCandidate(provider, "installed", byName, candidates);
+        }
+
+        Iterator<Provider> classpathProviders = ServiceLoader.load(Provider.class).iterator();
+        while (true) {
+            try {
+                if (!classpathProviders.hasNext()) {
+                    break;
+                }
+                addCandidate(classpathProviders.next(), "classpath", byName, candidates);
+            } catch (ServiceConfigurationError e) {
+                // A broken registration must not keep the others from being considered
+                System.err.println("Skipping crypto provider: " + e.getMessage());
+            }
+        }
+
+        for (CryptoProviderCandidate candidate : candidateBeans) {
+            addCandidate(candidate.getProvider(), "bean", byName, candidates);
+        }
+        return candidates;
+    }
+
+    private void addCandidate(Provider provider, String source, Map<String, Provider> byName, Map<Provider, String> candidates) {
+        if (provider == null || byName.containsKey(provider.getName()) || provider.getService("Cipher", "AES") == null) {
+            return;
+        }
+        byName.put(provider.getName(), provider);
+        candidates.put(provider, source);
+    }
+
+    /**
+     * Measure every candidate that passed the known-answer test. All of them are warmed up together first, so no
+     * candidate pays for JIT compilation of the JCA code they share. Then they take turns for a number of short
+     * rounds, in a different order each round, so drift during startup (GC, CPU frequency, other beans initialising)
+     * spreads over all of them instead of penalising whoever runs first or last.
+     */
+    private void benchmark(List<CandidateRun> runs) {
+        List<CandidateRun> passed = new ArrayList<>();
+        for (CandidateRun run : runs) {
+            if (run.error == null) {
+                passed.add(run);
+            }
+        }
+        if (passed.isEmpty()) {
+            return;
+        }
+
+        SecureRandom random = new SecureRandom();
+        byte[] keyBytes = new byte[16];
+        byte[] ivBytes = new byte[16];
+        byte[] payload = new byte[BENCHMARK_PAYLOAD_SIZE];
+        random.nextBytes(keyBytes);
+        random.nextBytes(ivBytes);
+        random.nextBytes(payload);
+        SecretKeySpec key = new SecretKeySpec(keyBytes, "AES");
+        IvParameterSpec iv = new IvParameterSpec(ivBytes);
+
+        int rounds = Math.max(1, encryptionProperties.getProviderBenchmarkRounds());
+        long roundNanos = Math.max(1, encryptionProperties.getProviderBenchmarkMillis() * 1_000_000L / rounds);
+
+        long warmupEnd = System.nanoTime() + encryptionProperties.getProviderWarmupMillis() * 1_000_000L;
+        do {
+            for (CandidateRun run : passed) {
+                measure(run, key, iv, payload, roundNanos, -1);
+            }
+        } while (System.nanoTime() < warmupEnd);
+
+        for (CandidateRun run : passed) {
+            run.samples = new double[rounds];
+        }
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < passed.size(); i++) {
+                measure(passed.get((i + round) % passed.size()), key, iv, payload, roundNanos, round);
+            }
+        }
+    }
+
+    /**
+     * Run round trips for the given time and record the rate as the sample of that round, or discard it if round is -1
+     */
+    private void measure(CandidateRun run, SecretKeySpec key, IvParameterSpec iv, byte[] payload, long durationNanos, int round) {
+        if (run.error != null) {
+            return;
+        }
+        try {
+            long operations = 0;
+            long start = System.nanoTime();
+            long end = start + durationNanos;
+            long now;
+            do {
+                roundTrip(run.provider, key, iv, payload);
+                operations++;
+                now = System.nanoTime();
+            } while (now < end);
+
+            if (round >= 0) {
+                run.samples[round] = operations / ((now - start) / 1_000_000_000.0);
+            }
+        } catch (Exception e) {
+            run.error = e.getMessage();
+        }
+    }
+
+    /**
+     * Encrypt then decrypt with fresh cipher instances, the way EncryptionUtil handles a request
+     */
+    private void roundTrip(Provider provider, SecretKeySpec key, IvParameterSpec iv, byte[] payload) throws GeneralSecurityException {
+        Cipher encryptCipher = Cipher.getInstance(EncryptionUtil.TRANSFORMATION, provider);
+        encryptCipher.init(Cipher.ENCRYPT_MODE, key, iv);
+        byte[] encrypted = encryptCipher.doFinal(payload);
+
+        Cipher decryptCipher = Cipher.getInstance(EncryptionUtil.TRANSFORMATION, provider);
+        decryptCipher.init(Cipher.DECRYPT_MODE, key, iv);
+        byte[] decrypted = decryptCipher.doFinal(encrypted);
+        // Keep the result observable so the JIT can't drop the work
+        sink += decrypted[decrypted.length - 1];
+    }
+
+    private void knownAnswerTest(Provider provider) throws Exception {
+        SecretKeySpec key = new SecretKeySpec(Hex.decodeHex(KAT_KEY), "AES");
+        IvParameterSpec iv = new IvParameterSpec(Hex.decodeHex(KAT_IV));
+        byte[] plaintext = Hex.decodeHex(KAT_PLAINTEXT);
+        byte[] expected = Hex.decodeHex(KAT_CIPHERTEXT);
+
+        Cipher encryptCipher = Cipher.getInstance(EncryptionUtil.TRANSFORMATION, provider);
+        encryptCipher.init(Cipher.ENCRYPT_MODE, key, iv);
+        byte[] ciphertext = encryptCipher.doFinal(plaintext);
+        // PKCS5 adds one full padding block after the block-aligned test vector
+        if (ciphertext.length != expected.length + 16 || !Arrays.equals(Arrays.copyOf(ciphertext, expected.length), expected)) {
+            throw new GeneralSecurityException("known-answer test failed: unexpected ciphertext");
+        }
+
+        Cipher decryptCipher = Cipher.getInstance(EncryptionUtil.TRANSFORMATION, provider);
+        decryptCipher.init(Cipher.DECRYPT_MODE, key, iv);
+        if (!Arrays.equals(decryptCipher.doFinal(ciphertext), plaintext)) {
+            throw new GeneralSecurityException("known-answer test failed: round trip mismatch");
+        }
+    }
+
+    /**
+     * Benchmark state of one candidate; error is set once it fails the known-answer test or a round
+     */
+    private static class CandidateRun {
+
+        private final Provider provider;
+        private final String source;
+        private double[] samples;
+        private String error;
+
+        CandidateRun(Provider provider, String source) {
+            this.provider = provider;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.encryptiondemo.crypto;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of the known-answer test and self-benchmark for one provider
+ */
+public class ProviderBenchmarkResult {
+
+    private final String provider;
+    private final String version;
+    private final String source;
+    private final boolean knownAnswerTestPassed;
+    private final int rounds;
+    private final double operationsPerSecond;
+    private final double minOperationsPerSecond;
+    private final double maxOperationsPerSecond;
+    private final double megabytesPerSecond;
+    private final String error;
+
+    private ProviderBenchmarkResult(String provider, String version, String source, boolean knownAnswerTestPassed,
+                                    int rounds, double operationsPerSecond, double minOperationsPerSecond,
+                                    double maxOperationsPerSecond, double megabytesPerSecond, String error) {
+        this.provider = provider;
+        this.version = version;
+        this.source = source;
+        this.knownAnswerTestPassed = knownAnswerTestPassed;
+        this.rounds = rounds;
+        this.operationsPerSecond = operationsPerSecond;
+        this.minOperationsPerSecond = minOperationsPerSecond;
+        this.maxOperationsPerSecond = maxOperationsPerSecond;
+        this.megabytesPerSecond = megabytesPerSecond;
+        this.error = error;
+    }
+
+    /**
+     * @param roundOperationsPerSecond round trips per second of every measured round
+     * @param payloadSize bytes encrypted and decrypted by each round trip
+     */
+    static ProviderBenchmarkResult measured(String provider, String version, String source,
+                                            double[] roundOperationsPerSecond, int payloadSize) {
+        double[] sorted = roundOperationsPerSecond.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        double median = sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+        // Every round trip encrypts and decrypts the payload
+        double megabytesPerSecond = median * 2.0 * payloadSize / 1_000_000.0;
+        return new ProviderBenchmarkResult(provider, version, source, true, sorted.length, median,
+            sorted[0], sorted[sorted.length - 1], megabytesPerSecond, null);
+    }
+
+    /**
+     * Passed the known-answer test but was not benchmarked, because it was the only one or was pinned by configuration
+     */
+    static ProviderBenchmarkResult passed(String provider, String version, String source) {
+        return new ProviderBenchmarkResult(provider, version, source, true, 0, 0, 0, 0, 0, null);
+    }
+
+    static ProviderBenchmarkResult failed(String provider, String version, String source, String error) {
+        return new ProviderBenchmarkResult(provider, version, source, false, 0, 0, 0, 0, 0, error);
+    }
+
+    public String getProvider() {
+        return provider;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Where the provider was found: installed, classpath or bean
+     */
+    public String getSource() {
+        return source;
+    }
+
+    public boolean isKnownAnswerTestPassed() {
+        return knownAnswerTestPassed;
+    }
+
+    /**
+     * Number of measured rounds, 0 if the provider was not benchmarked
+     */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /**
+     * Median over all rounds of encrypt + decrypt round trips per second, each including cipher lookup
+     * and init as EncryptionUtil does them
+     */
+    public double getOperationsPerSecond() {
+        return operationsPerSecond;
+    }
+
+    public double getMinOperationsPerSecond() {
+        return minOperationsPerSecond;
+    }
+
+    public double getMaxOperationsPerSecond() {
+        return maxOperationsPerSecond;
+    }
+
+    /**
+     * Slowest to fastest round as a percentage of the median. Differences between providers smaller
+     * than this are noise.
+     */
+    public double getSpreadPercent() {
+        return operationsPerSecond > 0 ? (maxOperationsPerSecond - minOperationsPerSecond) / operationsPerSecond * 100 : 0;
+    }
+
+    public double getMegabytesPerSecond() {
+        return megabytesPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.encryptiondemo.dto;
+
+public class UserRecord {
+    private Long id;
+    private String name;
+    private String email;
+    private String message;
+    private String created;
+
+    public UserRecord() {}
+
+    public UserRecord(Long id, UserRequest userRequest, String created) {
+        this.id = id;
+        this.name = userRequest.getName();
+        this.email = userRequest.getEmail();
+        this.message = userRequest.getMessage();
+        this.created = created;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getCreated() {
+        return created;
+    }
+
+    public void setCreated(String created) {
+        this.created = created;
+    }
+
+    @Override
+    public String toString() {
+        return "UserRecord{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", message='" + message + '\'' +
+                ", created='" + created + '\'' +
+                '}';
+    }
+}
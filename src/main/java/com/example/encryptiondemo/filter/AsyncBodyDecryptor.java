@@ -0,0 +1,215 @@
+package com.example.encryptiondemo.filter;
+
+import com.example.encryptiondemo.util.EncryptionUtil;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.apache.commons.codec.binary.Base64OutputStream;
+
+import javax.crypto.Cipher;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+
+/**
+ * Reads an encrypted body with Servlet non-blocking I/O and decrypts it as the data arrives:
+ * Base64 is decoded chunk by chunk, the first 16 decoded bytes initialise the cipher and
+ * the rest is fed through {@link Cipher#update} into a pooled buffer that only grows as data arrives.
+ * No container thread waits on the client while the body is uploaded, and bodies over the configured
+ * maximum are rejected with {@link BodyTooLargeException} as soon as they cross it.
+ */
+public class AsyncBodyDecryptor implements ReadListener {
+
+    private static final int READ_CHUNK_SIZE = 4096;
+
+    /**
+     * Receives the outcome once the whole body has been read
+     */
+    public interface Callback {
+
+        /**
+         * @param body decrypted body ready to read from position 0, empty if the request had no body
+         */
+        void onDecrypted(ByteBuffer body);
+
+        void onFailure(Throwable error);
+    }
+
+    private final ServletInputStream inputStream;
+    private final EncryptionUtil encryptionUtil;
+    private final BodyBufferPool bufferPool;
+    private final long maxBodySize;
+    private final Callback callback;
+    private final byte[] readBuffer = new byte[READ_CHUNK_SIZE];
+    private final CipherSink cipherSink;
+    private final Base64OutputStream base64Decoder;
+
+    private long bytesRead;
+    private boolean done;
+
+    /**
+     * @param maxBodySize largest encrypted body accepted, in bytes
+     */
+    public AsyncBodyDecryptor(ServletInputStream inputStream, long maxBodySize, EncryptionUtil encryptionUtil,
+                              BodyBufferPool bufferPool, Callback callback) {
+        this.inputStream = inputStream;
+        this.encryptionUtil = encryptionUtil;
+        this.bufferPool = bufferPool;
+        this.maxBodySize = maxBodySize;
+        this.callback = callback;
+        // Never trust the declared Content-Length for sizing, start small and grow with the data actually received
+        this.cipherSink = new CipherSink();
+        this.base64Decoder = new Base64OutputStream(cipherSink, false);
+    }
+
+    @Override
+    public synchronized void onDataAvailable() {
+        if (done) {
+            return;
+        }
+        try {
+            // Drain whatever the container has buffered, it calls back once more data arrives
+            while (inputStream.isReady()) {
+                int count = inputStream.read(readBuffer);
+                if (count == -1) {
+                    return;
+                }
+                bytesRead += count;
+                if (bytesRead > maxBodySize) {
+                    throw new BodyTooLargeException(maxBodySize);
+                }
+                base64Decoder.write(readBuffer, 0, count);
+            }
+        } catch (IOException e) {
+            onError(e);
+        }
+    }
+
+    @Override
+    public synchronized void onAllDataRead() {
+        if (done) {
+            return;
+        }
+        try {
+            // Flushes the last Base64 quantum and runs doFinal
+            base64Decoder.close();
+        } catch (IOException e) {
+            onError(e);
+            return;
+        }
+        done = true;
+        callback.onDecrypted(cipherSink.finish());
+    }
+
+    @Override
+    public synchronized void onError(Throwable error) {
+        if (done) {
+            return;
+        }
+        abort();
+        callback.onFailure(error);
+    }
+
+    /**
+     * Stop decrypting and give the buffer back, e.g. when the async cycle timed out
+     */
+    public synchronized void abort() {
+        if (!done) {
+            done = true;
+            bufferPool.release(cipherSink.output);
+            cipherSink.output = null;
+        }
+    }
+
+    /**
+     * Decoded bytes end up here: IV first, then ciphertext through the cipher into the output buffer
+     */
+    private class CipherSink extends OutputStream {
+
+        private final byte[] iv = new byte[encryptionUtil.getIvLength()];
+        private int ivLength;
+        private Cipher cipher;
+        private ByteBuffer output;
+        private boolean closed;
+
+        CipherSink() {
+            this.output = bufferPool.acquire(0);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (output == null) {
+                throw new IOException("Decryption aborted");
+            }
+            if (ivLength < iv.length) {
+                int count = Math.min(len, iv.length - ivLength);
+                System.arraycopy(b, off, iv, ivLength, count);
+                ivLength += count;
+                off += count;
+                len -= count;
+                if (ivLength < iv.length) {
+                    return;
+                }
+                try {
+                    cipher = encryptionUtil.createDecryptCipher(iv);
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("Decryption failed", e);
+                }
+            }
+            if (len > 0) {
+                try {
+                    ensureRemaining(cipher.getOutputSize(len));
+                    cipher.update(ByteBuffer.wrap(b, off, len), output);
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("Decryption failed", e);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed || output == null) {
+                return;
+            }
+            closed = true;
+            if (cipher == null) {
+                if (ivLength > 0) {
+                    throw new IOException("Decryption failed: payload shorter than IV");
+                }
+                return;
+            }
+            try {
+                ensureRemaining(cipher.getOutputSize(0));
+                cipher.doFinal(ByteBuffer.allocate(0), output);
+            } catch (GeneralSecurityException e) {
+                throw new IOException("Decryption failed", e);
+            }
+        }
+
+        /**
+         * @return the flipped output buffer, empty if nothing was received
+         */
+        ByteBuffer finish() {
+            ByteBuffer body = output;
+            output = null;
+            body.flip();
+            return body;
+        }
+
+        private void ensureRemaining(int required) {
+            if (output.remaining() >= required) {
+                return;
+            }
+            ByteBuffer larger = bufferPool.acquire(Math.max(output.capacity() * 2, output.position() + required));
+            output.flip();
+            larger.put(output);
+            bufferPool.release(output);
+            output = larger;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.encryptiondemo.filter;
+
+import com.example.encryptiondemo.config.EncryptionProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of reusable buffers for decrypted request bodies.
+ * Buffers of the configured size are recycled; larger requests get a one-off buffer
+ * that is simply dropped on release.
+ */
+@Component
+public class BodyBufferPool {
+
+    private final int bufferSize;
+    private final boolean direct;
+    private final BlockingQueue<ByteBuffer> idleBuffers;
+
+    public BodyBufferPool(EncryptionProperties encryptionProperties) {
+        this.bufferSize = encryptionProperties.getBufferSize();
+        this.direct = encryptionProperties.isDirectBuffers();
+        this.idleBuffers = new ArrayBlockingQueue<>(Math.max(1, encryptionProperties.getBufferPoolSize()));
+    }
+
+    /**
+     * Get a cleared buffer with at least the given capacity
+     */
+    public ByteBuffer acquire(int capacity) {
+        if (capacity > bufferSize) {
+            return allocate(capacity);
+        }
+        ByteBuffer buffer = idleBuffers.poll();
+        if (buffer == null) {
+            buffer = allocate(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Return a buffer obtained from {@link #acquire(int)}. The caller must not touch it afterwards.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferSize && buffer.isDirect() == direct) {
+            buffer.clear();
+            // Dropped for the garbage collector if the pool is already full
+            idleBuffers.offer(buffer);
+        }
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+}
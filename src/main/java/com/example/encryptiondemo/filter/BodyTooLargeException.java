@@ -0,0 +1,13 @@
+package com.example.encryptiondemo.filter;
+
+import java.io.IOException;
+
+/**
+ * Encrypted request body exceeds app.encryption.max-body-size
+ */
+public class BodyTooLargeException extends IOException {
+
+    public BodyTooLargeException(long maxBodySize) {
+        super("Encrypted request body exceeds " + maxBodySize + " bytes");
+    }
+}
@@ -1,48 +1,228 @@
 package com.example.encryptiondemo.filter;
 
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletRequestWrapper;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
 
+/**
+ * Request wrapper exposing the decrypted body held in a pooled buffer.
+ * The stream is always ready, so handlers using non-blocking reads work the same as blocking ones.
+ * The buffer goes back to the {@link BodyBufferPool} once the request completes, see {@link #releaseWhenComplete()}.
+ */
 public class DecryptedRequestWrapper extends HttpServletRequestWrapper {
-    
-    private final String decryptedBody;
-    
-    public DecryptedRequestWrapper(HttpServletRequest request, String decryptedBody) {
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    private final ByteBuffer body;
+    private final int contentLength;
+    private final BodyBufferPool bufferPool;
+
+    private DecryptedInputStream inputStream;
+    private BufferedReader reader;
+    private volatile boolean released;
+
+    /**
+     * @param body decrypted body, readable from position 0 to its limit
+     */
+    public DecryptedRequestWrapper(HttpServletRequest request, ByteBuffer body, BodyBufferPool bufferPool) {
         super(request);
-        this.decryptedBody = decryptedBody;
+        this.body = body;
+        this.contentLength = body.remaining();
+        this.bufferPool = bufferPool;
     }
-    
+
     @Override
     public ServletInputStream getInputStream() throws IOException {
-        ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(
-            decryptedBody.getBytes(StandardCharsets.UTF_8));
-        
-        return new ServletInputStream() {
+        if (reader != null) {
+            throw new IllegalStateException("getReader() has already been called for this request");
+        }
+        if (inputStream == null) {
+            inputStream = new DecryptedInputStream(body.duplicate());
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            if (inputStream != null) {
+                throw new IllegalStateException("getInputStream() has already been called for this request");
+            }
+            // EncryptionUtil always encrypts UTF-8, whatever the request declares
+            reader = new BufferedReader(new InputStreamReader(new DecryptedInputStream(body.duplicate()), StandardCharsets.UTF_8));
+        }
+        return reader;
+    }
+
+    @Override
+    public int getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return contentLength;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            return String.valueOf(contentLength);
+        }
+        return super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            return Collections.enumeration(Collections.singletonList(String.valueOf(contentLength)));
+        }
+        return super.getHeaders(name);
+    }
+
+    @Override
+    public int getIntHeader(String name) {
+        if (CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            return contentLength;
+        }
+        return super.getIntHeader(name);
+    }
+
+    /**
+     * Return the body buffer to the pool now, or once the async cycle completes if the request went async
+     */
+    public void releaseWhenComplete() {
+        if (!isAsyncStarted()) {
+            release();
+            return;
+        }
+        getAsyncContext().addListener(new AsyncListener() {
             @Override
-            public boolean isFinished() {
-                return byteArrayInputStream.available() == 0;
+            public void onComplete(AsyncEvent event) {
+                release();
             }
-            
+
             @Override
-            public boolean isReady() {
-                return true;
+            public void onTimeout(AsyncEvent event) {
+                // onComplete follows
             }
-            
+
             @Override
-            public void setReadListener(ReadListener readListener) {
-                // Not implemented
+            public void onError(AsyncEvent event) {
+                // onComplete follows
             }
-            
+
             @Override
-            public int read() throws IOException {
-                return byteArrayInputStream.read();
+            public void onStartAsync(AsyncEvent event) {
+                // Listeners are dropped when async is restarted, e.g. by a DeferredResult on an async dispatch
+                event.getAsyncContext().addListener(this);
+            }
+        });
+    }
+
+    private void release() {
+        if (!released) {
+            released = true;
+            bufferPool.release(body);
+        }
+    }
+
+    private class DecryptedInputStream extends ServletInputStream {
+
+        private final ByteBuffer buffer;
+
+        DecryptedInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return !buffer.hasRemaining();
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        /**
+         * The body is already decrypted in memory, so the listener is told straight away that
+         * everything is available and read
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (readListener == null) {
+                throw new NullPointerException("ReadListener must not be null");
+            }
+            if (!isAsyncStarted()) {
+                throw new IllegalStateException("Non-blocking I/O requires the request to be in async mode");
+            }
+            try {
+                if (buffer.hasRemaining()) {
+                    readListener.onDataAvailable();
+                }
+                readListener.onAllDataRead();
+            } catch (Throwable t) {
+                readListener.onError(t);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            ensureNotReleased();
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            ensureNotReleased();
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public byte[] readAllBytes() throws IOException {
+            ensureNotReleased();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            ensureNotReleased();
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return released ? 0 : buffer.remaining();
+        }
+
+        private void ensureNotReleased() throws IOException {
+            if (released) {
+                throw new IOException("Request body has already been released");
             }
-        };
+        }
     }
 }
@@ -6,12 +6,18 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.apache.commons.codec.binary.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StreamUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
@@ -25,6 +31,13 @@ public class EncryptionFilter implements Filter {
     @Autowired
     private EncryptionProperties encryptionProperties;
     
+    @Autowired
+    private BodyBufferPool bodyBufferPool;
+    
+    private static final Logger logger = LoggerFactory.getLogger(EncryptionFilter.class);
+    
+    private static final String DECRYPTED_BODY_ATTRIBUTE = EncryptionFilter.class.getName() + ".DECRYPTED_BODY";
+    
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     @Override
@@ -34,35 +47,184 @@ public class EncryptionFilter implements Filter {
         HttpServletRequest httpRequest = (HttpServletRequest) request;
         HttpServletResponse httpResponse = (HttpServletResponse) response;
         
+        // Second half of the non-blocking path: the body was decrypted while the request was parked
+        if (httpRequest.getDispatcherType() == DispatcherType.ASYNC) {
+            Object decryptedBody = httpRequest.getAttribute(DECRYPTED_BODY_ATTRIBUTE);
+            if (decryptedBody instanceof ByteBuffer body) {
+                httpRequest.removeAttribute(DECRYPTED_BODY_ATTRIBUTE);
+                doFilterDecrypted(new DecryptedRequestWrapper(httpRequest, body, bodyBufferPool), response, chain);
+            } else {
+                // Later async dispatches, e.g. completing a DeferredResult or CompletableFuture
+                chain.doFilter(request, response);
+            }
+            return;
+        }
+        
         // Check if encryption is enabled and if this request matches any encrypted paths
         if (encryptionProperties.isEnabled() && 
             !"GET".equalsIgnoreCase(httpRequest.getMethod()) && 
             matchesEncryptedPath(httpRequest.getRequestURI())) {
             
+            // Refuse oversized bodies before reading or buffering anything
+            if (httpRequest.getContentLengthLong() > encryptionProperties.getMaxBodySize()) {
+                writeDecryptionFailure(httpRequest, httpResponse, new BodyTooLargeException(encryptionProperties.getMaxBodySize()));
+                return;
+            }
+            
+            if (encryptionProperties.isNonBlocking() && httpRequest.isAsyncSupported()) {
+                startNonBlockingDecryption(httpRequest, httpResponse);
+                return;
+            }
+            
             // Decrypt request body
-            String encryptedBody = StreamUtils.copyToString(httpRequest.getInputStream(), StandardCharsets.UTF_8);
-            if (!encryptedBody.isEmpty()) {
+            byte[] encryptedBody;
+            try {
+                encryptedBody = readBody(httpRequest.getInputStream(), encryptionProperties.getMaxBodySize());
+            } catch (BodyTooLargeException e) {
+                writeDecryptionFailure(httpRequest, httpResponse, e);
+                return;
+            }
+            if (encryptedBody.length > 0) {
+                DecryptedRequestWrapper wrappedRequest;
                 try {
-                    String decryptedBody = encryptionUtil.decrypt(encryptedBody);
-                    System.out.println("Decrypted request body for " + httpRequest.getMethod() + " " + httpRequest.getRequestURI() + ": " + decryptedBody);
-                    
-                    // Create a new request wrapper with decrypted body
-                    DecryptedRequestWrapper wrappedRequest = new DecryptedRequestWrapper(httpRequest, decryptedBody);
-                    chain.doFilter(wrappedRequest, response);
-                    return;
+                    wrappedRequest = decryptBody(httpRequest, encryptedBody);
                 } catch (Exception e) {
-                    System.err.println("Decryption failed for " + httpRequest.getMethod() + " " + httpRequest.getRequestURI() + ": " + e.getMessage());
-                    httpResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-                    httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
-                    httpResponse.getWriter().write("{\"success\":false,\"message\":\"Decryption failed\"}");
+                    writeDecryptionFailure(httpRequest, httpResponse, e);
                     return;
                 }
+                
+                doFilterDecrypted(wrappedRequest, response, chain);
+                return;
             }
         }
         
         chain.doFilter(request, response);
     }
     
+    /**
+     * Park the request and decrypt the body as it arrives. Once the last byte is in, the request is
+     * dispatched again (DispatcherType.ASYNC) and continues down the chain with the decrypted body.
+     */
+    private void startNonBlockingDecryption(HttpServletRequest httpRequest, HttpServletResponse httpResponse) throws IOException {
+        AsyncContext asyncContext = httpRequest.startAsync(httpRequest, httpResponse);
+        ServletInputStream inputStream = httpRequest.getInputStream();
+        
+        AsyncBodyDecryptor decryptor = new AsyncBodyDecryptor(inputStream, encryptionProperties.getMaxBodySize(),
+            encryptionUtil, bodyBufferPool, new AsyncBodyDecryptor.Callback() {
+                @Override
+                public void onDecrypted(ByteBuffer body) {
+                    logDecryptedBody(httpRequest, body);
+                    // Set even for an empty body: it marks the dispatch that resumes this request, whose own
+                    // input stream is in non-blocking mode and already at EOF, so it must never reach the chain
+                    httpRequest.setAttribute(DECRYPTED_BODY_ATTRIBUTE, body);
+                    asyncContext.dispatch();
+                }
+                
+                @Override
+                public void onFailure(Throwable error) {
+                    try {
+                        writeDecryptionFailure(httpRequest, httpResponse, error);
+                    } catch (IOException e) {
+                        System.err.println("Failed to write decryption error response: " + e.getMessage());
+                    } finally {
+                        asyncContext.complete();
+                    }
+                }
+            });
+        
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                decryptor.abort();
+            }
+            
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                // Client stopped sending before the body was complete
+                decryptor.abort();
+                httpResponse.setStatus(HttpServletResponse.SC_REQUEST_TIMEOUT);
+                asyncContext.complete();
+            }
+            
+            @Override
+            public void onError(AsyncEvent event) {
+                decryptor.abort();
+            }
+            
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        inputStream.setReadListener(decryptor);
+    }
+    
+    private void doFilterDecrypted(DecryptedRequestWrapper wrappedRequest, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        try {
+            chain.doFilter(wrappedRequest, response);
+        } finally {
+            wrappedRequest.releaseWhenComplete();
+        }
+    }
+    
+    private void writeDecryptionFailure(HttpServletRequest httpRequest, HttpServletResponse httpResponse, Throwable error) throws IOException {
+        System.err.println("Decryption failed for " + httpRequest.getMethod() + " " + httpRequest.getRequestURI() + ": " + error.getMessage());
+        httpResponse.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (error instanceof BodyTooLargeException) {
+            httpResponse.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            httpResponse.getWriter().write("{\"success\":false,\"message\":\"Request body too large\"}");
+            return;
+        }
+        httpResponse.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        httpResponse.getWriter().write("{\"success\":false,\"message\":\"Decryption failed\"}");
+    }
+    
+    /**
+     * Read the whole body, failing as soon as it grows past maxBodySize (chunked bodies declare no length)
+     */
+    private byte[] readBody(InputStream inputStream, int maxBodySize) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] chunk = new byte[StreamUtils.BUFFER_SIZE];
+        int count;
+        while ((count = inputStream.read(chunk)) != -1) {
+            if (body.size() + count > maxBodySize) {
+                throw new BodyTooLargeException(maxBodySize);
+            }
+            body.write(chunk, 0, count);
+        }
+        return body.toByteArray();
+    }
+    
+    /**
+     * Decrypt the Base64 body into a pooled buffer and wrap the request around it
+     */
+    private DecryptedRequestWrapper decryptBody(HttpServletRequest httpRequest, byte[] encryptedBody) {
+        byte[] encryptedWithIv = Base64.decodeBase64(encryptedBody);
+        ByteBuffer body = bodyBufferPool.acquire(encryptionUtil.getMaxDecryptedLength(encryptedWithIv.length));
+        try {
+            encryptionUtil.decrypt(encryptedWithIv, body);
+            body.flip();
+        } catch (RuntimeException e) {
+            bodyBufferPool.release(body);
+            throw e;
+        }
+        logDecryptedBody(httpRequest, body);
+        
+        // Create a new request wrapper with decrypted body
+        return new DecryptedRequestWrapper(httpRequest, body, bodyBufferPool);
+    }
+    
+    /**
+     * Plaintext bodies are only logged at TRACE: decoding them costs a full copy per request, and the
+     * default profile already runs this package at DEBUG
+     */
+    private void logDecryptedBody(HttpServletRequest httpRequest, ByteBuffer body) {
+        if (logger.isTraceEnabled()) {
+            logger.trace("Decrypted request body for {} {}: {}", httpRequest.getMethod(), httpRequest.getRequestURI(),
+                StandardCharsets.UTF_8.decode(body.duplicate()));
+        }
+    }
+    
     /**
      * Check if the given URI matches any of the configured encrypted paths
      */
@@ -0,0 +1,86 @@
+package com.example.encryptiondemo.service;
+
+import com.example.encryptiondemo.store.EncryptedRecordStore;
+import com.example.encryptiondemo.store.RecordNotFoundException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Departments are free-form JSON objects; the stored copy carries its id under "id"
+ */
+@Service
+public class DepartmentService {
+
+    private static final TypeReference<Map<String, Object>> DEPARTMENT_TYPE = new TypeReference<>() {};
+
+    @Autowired
+    @Qualifier("departmentStore")
+    private EncryptedRecordStore departmentStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public Map<String, Object> createDepartment(Map<String, Object> departmentData) {
+        long id = departmentStore.nextId();
+        Map<String, Object> department = withId(id, departmentData);
+        departmentStore.insert(id, write(id, department));
+        return department;
+    }
+
+    /**
+     * Replace an existing department
+     *
+     * @throws RecordNotFoundException if there is no department with this id
+     */
+    public Map<String, Object> updateDepartment(Long id, Map<String, Object> departmentData) {
+        Map<String, Object> department = withId(id, departmentData);
+        if (!departmentStore.update(id, write(id, department))) {
+            throw new RecordNotFoundException("Department " + id + " not found");
+        }
+        return department;
+    }
+
+    public List<Map<String, Object>> findAllDepartments() {
+        List<Map<String, Object>> departments = new ArrayList<>();
+        for (byte[] value : departmentStore.getAll().values()) {
+            departments.add(read(value));
+        }
+        return departments;
+    }
+
+    private static Map<String, Object> withId(long id, Map<String, Object> departmentData) {
+        Map<String, Object> department = new LinkedHashMap<>();
+        department.put("id", id);
+        departmentData.forEach((key, value) -> {
+            if (!"id".equals(key)) {
+                department.put(key, value);
+            }
+        });
+        return department;
+    }
+
+    private byte[] write(long id, Map<String, Object> department) {
+        try {
+            return objectMapper.writeValueAsBytes(department);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize department " + id, e);
+        }
+    }
+
+    private Map<String, Object> read(byte[] value) {
+        try {
+            return objectMapper.readValue(value, DEPARTMENT_TYPE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read stored department", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.encryptiondemo.service;
+
+import com.example.encryptiondemo.dto.UserRecord;
+import com.example.encryptiondemo.dto.UserRequest;
+import com.example.encryptiondemo.store.EncryptedRecordStore;
+import com.example.encryptiondemo.store.RecordNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class UserService {
+
+    private static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Autowired
+    @Qualifier("userStore")
+    private EncryptedRecordStore userStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public UserRecord createUser(UserRequest userRequest) {
+        UserRecord user = new UserRecord(userStore.nextId(), userRequest, LocalDateTime.now().format(CREATED_FORMAT));
+        userStore.insert(user.getId(), write(user));
+        return user;
+    }
+
+    /**
+     * Replace an existing user, keeping its creation time
+     *
+     * @throws RecordNotFoundException if there is no user with this id
+     */
+    public UserRecord updateUser(Long id, UserRequest userRequest) {
+        UserRecord existing = findUser(id);
+        if (existing == null) {
+            throw new RecordNotFoundException("User " + id + " not found");
+        }
+        UserRecord user = new UserRecord(id, userRequest, existing.getCreated());
+        // Deleted concurrently since the lookup
+        if (!userStore.update(id, write(user))) {
+            throw new RecordNotFoundException("User " + id + " not found");
+        }
+        return user;
+    }
+
+    public boolean deleteUser(Long id) {
+        return userStore.delete(id);
+    }
+
+    /**
+     * @return the user, or null if there is none with this id
+     */
+    public UserRecord findUser(Long id) {
+        byte[] value = userStore.get(id);
+        return value != null ? read(value) : null;
+    }
+
+    public List<UserRecord> findAllUsers() {
+        List<UserRecord> users = new ArrayList<>();
+        for (byte[] value : userStore.getAll().values()) {
+            users.add(read(value));
+        }
+        return users;
+    }
+
+    private byte[] write(UserRecord user) {
+        try {
+            return objectMapper.writeValueAsBytes(user);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize user " + user.getId(), e);
+        }
+    }
+
+    private UserRecord read(byte[] value) {
+        try {
+            return objectMapper.readValue(value, UserRecord.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read stored user", e);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.encryptiondemo.store;
+
+import com.example.encryptiondemo.util.EncryptionUtil;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded key-value store for one collection of records, keyed by a long id.
+ *
+ * Values are encrypted with {@link EncryptionUtil} and appended to a memory-mapped {@link SegmentLog};
+ * an in-memory index maps each id to its latest record. Ids are only ever handed out by {@link #nextId()},
+ * never chosen by callers. Overwrites and deletes only append, and
+ * {@link #compact(double)} later rewrites the live records of mostly-dead segments so their files can be dropped.
+ * On startup the index is rebuilt by replaying the log, stopping at the first torn record.
+ */
+public class EncryptedRecordStore implements Closeable {
+
+    /**
+     * Ids reach browser clients as JSON numbers, which are only exact up to 2^53 - 1
+     */
+    public static final long MAX_ID = 9_007_199_254_740_991L;
+
+    private final String name;
+    private final SegmentLog log;
+    private final EncryptionUtil encryptionUtil;
+    private final ConcurrentHashMap<Long, RecordLocation> index = new ConcurrentHashMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final Object writeLock = new Object();
+
+    public EncryptedRecordStore(String name, Path directory, int segmentSize, boolean syncWrites,
+                                EncryptionUtil encryptionUtil) throws IOException {
+        this.name = name;
+        this.encryptionUtil = encryptionUtil;
+        this.log = new SegmentLog(directory, segmentSize, syncWrites);
+        recover();
+    }
+
+    /**
+     * Allocate an id that has never been used in this store, not even by records since deleted and compacted away
+     */
+    public long nextId() {
+        synchronized (writeLock) {
+            if (lastId.get() >= MAX_ID) {
+                throw new IllegalStateException("Record store '" + name + "' has run out of ids");
+            }
+            return lastId.incrementAndGet();
+        }
+    }
+
+    /**
+     * Store the first version of a record under an id obtained from {@link #nextId()}
+     *
+     * @throws IllegalArgumentException if the id was not allocated by nextId() or is already in use
+     */
+    public void insert(long id, byte[] value) {
+        // Encrypt outside the lock, only the append itself is serialised
+        byte[] encrypted = encryptionUtil.encrypt(value);
+        synchronized (writeLock) {
+            if (id < 1 || id > lastId.get()) {
+                throw new IllegalArgumentException("Id " + id + " was not allocated by nextId() of record store '" + name + "'");
+            }
+            if (index.containsKey(id)) {
+                throw new IllegalArgumentException("Record " + id + " already exists in record store '" + name + "'");
+            }
+            index.put(id, append(SegmentLog.PUT, id, encrypted));
+        }
+    }
+
+    /**
+     * Replace an existing record; unknown ids are never created
+     *
+     * @return false if there is no record with this id
+     * @throws InvalidRecordIdException if the id is not between 1 and {@link #MAX_ID}
+     */
+    public boolean update(long id, byte[] value) {
+        checkId(id);
+        byte[] encrypted = encryptionUtil.encrypt(value);
+        synchronized (writeLock) {
+            if (!index.containsKey(id)) {
+                return false;
+            }
+            markOverwritten(id, index.put(id, append(SegmentLog.PUT, id, encrypted)));
+            return true;
+        }
+    }
+
+    /**
+     * @return the decrypted value, or null if there is no record with this id
+     * @throws InvalidRecordIdException if the id is not between 1 and {@link #MAX_ID}
+     */
+    public byte[] get(long id) {
+        checkId(id);
+        RecordLocation location = index.get(id);
+        if (location == null) {
+            return null;
+        }
+        return encryptionUtil.decrypt(log.read(location));
+    }
+
+    /**
+     * @return false if there is no record with this id
+     * @throws InvalidRecordIdException if the id is not between 1 and {@link #MAX_ID}
+     */
+    public boolean delete(long id) {
+        checkId(id);
+        synchronized (writeLock) {
+            RecordLocation previous = index.remove(id);
+            if (previous == null) {
+                return false;
+            }
+            // The tombstone itself is never live, it only shadows older records until they are compacted
+            markDead(appendDelete(id));
+            markOverwritten(id, previous);
+            return true;
+        }
+    }
+
+    /**
+     * All records ordered by id
+     */
+    public Map<Long, byte[]> getAll() {
+        List<Long> ids = new ArrayList<>(index.keySet());
+        ids.sort(null);
+        Map<Long, byte[]> records = new LinkedHashMap<>();
+        for (Long id : ids) {
+            byte[] value = get(id);
+            // Skip records deleted while iterating
+            if (value != null) {
+                records.put(id, value);
+            }
+        }
+        return records;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Rewrite the live records of every sealed segment whose dead-byte ratio reaches the threshold,
+     * then delete that segment. Records are copied still encrypted, nothing is decrypted.
+     *
+     * @return number of segments removed
+     */
+    public int compact(double threshold) throws IOException {
+        int compacted = 0;
+        for (Segment segment : log.getSealedSegments()) {
+            if (segment.getDeadRatio() < threshold) {
+                continue;
+            }
+            synchronized (writeLock) {
+                log.scan(segment, (location, type, id) -> {
+                    if (type == SegmentLog.PUT) {
+                        if (location.equals(index.get(id))) {
+                            index.put(id, log.append(SegmentLog.PUT, id, log.read(location)));
+                        }
+                    } else if (type == SegmentLog.DELETE && !index.containsKey(id) && log.hasDeadPutBefore(id, segment)) {
+                        // Still shadows a record in an older segment, otherwise it is dropped
+                        markDead(log.appendDelete(id));
+                    }
+                });
+                // The record holding the highest id may just have been dropped, keep nextId() from reusing it
+                markDead(log.appendSequence(lastId.get()));
+                log.delete(segment);
+            }
+            compacted++;
+        }
+        if (compacted > 0) {
+            System.out.println("Compacted " + compacted + " segment(s) of record store '" + name + "'");
+        }
+        return compacted;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            log.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        log.recover((location, type, id) -> {
+            if (type == SegmentLog.PUT) {
+                markOverwritten(id, index.put(id, location));
+            } else if (type == SegmentLog.SEQUENCE) {
+                markDead(location);
+            } else {
+                markOverwritten(id, index.remove(id));
+                markDead(location);
+            }
+            lastId.accumulateAndGet(id, Math::max);
+        });
+        System.out.println("Record store '" + name + "' recovered " + index.size() + " record(s)");
+    }
+
+    private RecordLocation append(byte type, long id, byte[] value) {
+        try {
+            return log.append(type, id, value);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to record store '" + name + "'", e);
+        }
+    }
+
+    private RecordLocation appendDelete(long id) {
+        try {
+            return log.appendDelete(id);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write to record store '" + name + "'", e);
+        }
+    }
+
+    private static void checkId(long id) {
+        if (id < 1 || id > MAX_ID) {
+            throw new InvalidRecordIdException(id);
+        }
+    }
+
+    private static void markDead(RecordLocation location) {
+        if (location != null) {
+            location.getSegment().addDeadBytes(location.getSize());
+        }
+    }
+
+    /**
+     * Mark the previous PUT of an id dead, remembering its segment so tombstones for the id outlive it
+     */
+    private static void markOverwritten(long id, RecordLocation previous) {
+        if (previous != null) {
+            previous.getSegment().addDeadPut(id, previous.getSize());
+        }
+    }
+}
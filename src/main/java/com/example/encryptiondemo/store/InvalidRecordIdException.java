@@ -0,0 +1,11 @@
+package com.example.encryptiondemo.store;
+
+/**
+ * A record id outside the range a store accepts, see {@link EncryptedRecordStore#MAX_ID}
+ */
+public class InvalidRecordIdException extends RuntimeException {
+
+    public InvalidRecordIdException(long id) {
+        super("Id must be between 1 and " + EncryptedRecordStore.MAX_ID + ", got " + id);
+    }
+}
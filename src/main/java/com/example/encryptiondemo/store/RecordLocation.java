@@ -0,0 +1,48 @@
+package com.example.encryptiondemo.store;
+
+/**
+ * Position of one record inside a segment, as kept by the in-memory index
+ */
+class RecordLocation {
+
+    private final Segment segment;
+    private final int offset;
+    private final int size;
+
+    RecordLocation(Segment segment, int offset, int size) {
+        this.segment = segment;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    Segment getSegment() {
+        return segment;
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Total size on disk including the record header
+     */
+    int getSize() {
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RecordLocation other)) {
+            return false;
+        }
+        return segment == other.segment && offset == other.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(segment.getId()) * 31 + offset;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.encryptiondemo.store;
+
+/**
+ * An update addressed a record that does not exist; records are only created through {@link EncryptedRecordStore#nextId()}
+ */
+public class RecordNotFoundException extends RuntimeException {
+
+    public RecordNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.encryptiondemo.store;
+
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One memory-mapped segment file of a {@link SegmentLog}.
+ * Only the active segment is appended to; all others are sealed and immutable until compacted away.
+ */
+class Segment {
+
+    private final long id;
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final AtomicLong deadBytes = new AtomicLong();
+    private final Set<Long> deadPutIds = ConcurrentHashMap.newKeySet();
+    private volatile int writePosition;
+
+    Segment(long id, Path path, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.buffer = buffer;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Shared mapping; callers only use absolute get/put so the buffer position is never touched
+     */
+    MappedByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    int getCapacity() {
+        return buffer.capacity();
+    }
+
+    int getWritePosition() {
+        return writePosition;
+    }
+
+    void setWritePosition(int writePosition) {
+        this.writePosition = writePosition;
+    }
+
+    /**
+     * Account for a record in this segment that has been overwritten or deleted
+     */
+    void addDeadBytes(int size) {
+        deadBytes.addAndGet(size);
+    }
+
+    /**
+     * Account for a PUT record in this segment that has been overwritten or deleted.
+     * While the segment exists, a tombstone for the id written after it must survive compaction.
+     */
+    void addDeadPut(long id, int size) {
+        deadPutIds.add(id);
+        addDeadBytes(size);
+    }
+
+    boolean hasDeadPut(long id) {
+        return deadPutIds.contains(id);
+    }
+
+    double getDeadRatio() {
+        int used = writePosition;
+        return used == 0 ? 0 : (double) deadBytes.get() / used;
+    }
+}
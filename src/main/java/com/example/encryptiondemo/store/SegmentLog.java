@@ -0,0 +1,253 @@
+package com.example.encryptiondemo.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log split into fixed-size, memory-mapped segment files.
+ *
+ * Record layout: [int payload length][int CRC32 of payload][payload], payload = [byte type][long id][value].
+ * Types are PUT, DELETE (tombstone, empty value) and SEQUENCE (empty value, id is the highest id ever allocated).
+ * The length is written last, so a record torn by a crash either reads as the zeroed end of the
+ * segment or fails its checksum; recovery stops there and clears the rest of the segment.
+ *
+ * Not thread-safe for writers: {@link EncryptedRecordStore} serialises appends, compaction and deletes.
+ * Reads may run concurrently with all of them.
+ */
+class SegmentLog implements Closeable {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    static final byte SEQUENCE = 3;
+
+    private static final int HEADER_SIZE = 8;
+    private static final int KEY_SIZE = 9;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte[] EMPTY = new byte[0];
+
+    /**
+     * Called for every valid record while scanning a segment
+     */
+    interface RecordVisitor {
+        void visit(RecordLocation location, byte type, long id) throws IOException;
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncWrites;
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private volatile Segment active;
+
+    SegmentLog(Path directory, int segmentSize, boolean syncWrites) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                long size = Files.size(file);
+                // An empty file means the segment was created but never mapped before a crash
+                segments.put(id, openSegment(id, file, size == 0 ? segmentSize : size));
+            }
+        }
+        active = segments.isEmpty() ? createSegment(1) : segments.lastEntry().getValue();
+    }
+
+    /**
+     * Rebuild write positions after a restart, visiting every intact record in log order
+     */
+    void recover(RecordVisitor visitor) throws IOException {
+        for (Segment segment : segments.values()) {
+            scan(segment, visitor, true);
+        }
+    }
+
+    /**
+     * Visit every record of the given segment in write order
+     */
+    void scan(Segment segment, RecordVisitor visitor) throws IOException {
+        scan(segment, visitor, false);
+    }
+
+    RecordLocation append(byte type, long id, byte[] value) throws IOException {
+        int payloadLength = KEY_SIZE + value.length;
+        int recordSize = HEADER_SIZE + payloadLength;
+        if (recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record of " + recordSize + " bytes does not fit in a segment of " + segmentSize + " bytes");
+        }
+        if (active.getWritePosition() + recordSize > active.getCapacity()) {
+            roll();
+        }
+
+        byte[] payload = new byte[payloadLength];
+        ByteBuffer.wrap(payload).put(type).putLong(id).put(value);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        MappedByteBuffer buffer = active.getBuffer();
+        int offset = active.getWritePosition();
+        buffer.put(offset + HEADER_SIZE, payload);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.putInt(offset, payloadLength);
+        if (syncWrites) {
+            buffer.force(offset, recordSize);
+        }
+        active.setWritePosition(offset + recordSize);
+        return new RecordLocation(active, offset, recordSize);
+    }
+
+    RecordLocation appendDelete(long id) throws IOException {
+        return append(DELETE, id, EMPTY);
+    }
+
+    RecordLocation appendSequence(long lastId) throws IOException {
+        return append(SEQUENCE, lastId, EMPTY);
+    }
+
+    /**
+     * Read the value of a record. Safe to call while other threads append or compact.
+     */
+    byte[] read(RecordLocation location) {
+        byte[] value = new byte[location.getSize() - HEADER_SIZE - KEY_SIZE];
+        location.getSegment().getBuffer().get(location.getOffset() + HEADER_SIZE + KEY_SIZE, value);
+        return value;
+    }
+
+    /**
+     * All segments except the one currently written to, oldest first
+     */
+    List<Segment> getSealedSegments() {
+        List<Segment> sealed = new ArrayList<>(segments.values());
+        sealed.remove(active);
+        return sealed;
+    }
+
+    /**
+     * Whether a segment older than the given one still holds an overwritten or deleted PUT for the id
+     */
+    boolean hasDeadPutBefore(long id, Segment segment) {
+        for (Segment older : segments.headMap(segment.getId()).values()) {
+            if (older.hasDeadPut(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Drop a sealed segment whose live records have been copied elsewhere.
+     * The copies, and the directory entries of any segment files created for them, are made durable
+     * first so a crash can never leave the only copy in a deleted file.
+     * The mapping stays valid until garbage collected, so in-flight reads still succeed.
+     */
+    void delete(Segment segment) throws IOException {
+        if (segment == active) {
+            throw new IllegalStateException("Cannot delete the active segment");
+        }
+        active.getBuffer().force();
+        syncDirectory();
+        segments.remove(segment.getId());
+        Files.deleteIfExists(segment.getPath());
+        syncDirectory();
+    }
+
+    @Override
+    public void close() {
+        for (Segment segment : segments.values()) {
+            segment.getBuffer().force();
+        }
+    }
+
+    private void roll() throws IOException {
+        active.getBuffer().force();
+        active = createSegment(active.getId() + 1);
+    }
+
+    private Segment createSegment(long id) throws IOException {
+        Path file = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        Segment segment = openSegment(id, file, segmentSize);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void syncDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (UnsupportedOperationException | AccessDeniedException e) {
+            // Directories cannot be opened or synced on every platform (e.g. Windows), file data is still forced
+        }
+    }
+
+    private Segment openSegment(long id, Path file, long size) throws IOException {
+        // The mapping outlives the channel, no file handle is kept per segment
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            return new Segment(id, file, buffer);
+        }
+    }
+
+    private void scan(Segment segment, RecordVisitor visitor, boolean recovering) throws IOException {
+        MappedByteBuffer buffer = segment.getBuffer();
+        int limit = recovering ? segment.getCapacity() : segment.getWritePosition();
+        int position = 0;
+        boolean corrupted = false;
+
+        while (position + HEADER_SIZE <= limit) {
+            int payloadLength = buffer.getInt(position);
+            if (payloadLength == 0) {
+                break;
+            }
+            if (payloadLength < KEY_SIZE || position + HEADER_SIZE + payloadLength > limit) {
+                corrupted = true;
+                break;
+            }
+            byte[] payload = new byte[payloadLength];
+            buffer.get(position + HEADER_SIZE, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                corrupted = true;
+                break;
+            }
+
+            ByteBuffer key = ByteBuffer.wrap(payload, 0, KEY_SIZE);
+            byte type = key.get();
+            long id = key.getLong();
+            int recordSize = HEADER_SIZE + payloadLength;
+            visitor.visit(new RecordLocation(segment, position, recordSize), type, id);
+            position += recordSize;
+        }
+
+        if (recovering) {
+            segment.setWritePosition(position);
+            if (corrupted) {
+                System.err.println("Truncating torn record in " + segment.getPath() + " at offset " + position);
+                clear(buffer, position);
+            }
+        }
+    }
+
+    private void clear(MappedByteBuffer buffer, int from) {
+        byte[] zeros = new byte[4096];
+        for (int position = from; position < buffer.capacity(); position += zeros.length) {
+            buffer.put(position, zeros, 0, Math.min(zeros.length, buffer.capacity() - position));
+        }
+        buffer.force();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.encryptiondemo.util;
 
+import com.example.encryptiondemo.crypto.CryptoProviderSelector;
 import com.example.encryptiondemo.service.KeyManagementService;
 import org.apache.commons.codec.binary.Base64;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,19 +9,25 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Cipher;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
 @Component
 public class EncryptionUtil {
     
     private static final String ALGORITHM = "AES";
-    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+    public static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
     private static final int IV_LENGTH = 16; // AES block size
     
     @Autowired
     private KeyManagementService keyManagementService;
     
+    @Autowired
+    private CryptoProviderSelector cryptoProviderSelector;
+    
     private SecretKeySpec getSecretKey() {
         String key = keyManagementService.getCurrentKey();
         byte[] keyBytes = Base64.decodeBase64(key);
@@ -28,8 +35,15 @@ public class EncryptionUtil {
     }
     
     public String encrypt(String plainText) {
+        return Base64.encodeBase64String(encrypt(plainText.getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Encrypt raw bytes, returning IV + ciphertext without Base64 encoding
+     */
+    public byte[] encrypt(byte[] plainBytes) {
         try {
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            Cipher cipher = cryptoProviderSelector.createCipher();
             
             // Generate random IV
             byte[] iv = new byte[IV_LENGTH];
@@ -37,19 +51,28 @@ public class EncryptionUtil {
             IvParameterSpec ivSpec = new IvParameterSpec(iv);
             
             cipher.init(Cipher.ENCRYPT_MODE, getSecretKey(), ivSpec);
-            byte[] encryptedBytes = cipher.doFinal(plainText.getBytes(StandardCharsets.UTF_8));
+            byte[] encryptedBytes = cipher.doFinal(plainBytes);
             
             // Prepend IV to encrypted data
             byte[] encryptedWithIv = new byte[IV_LENGTH + encryptedBytes.length];
             System.arraycopy(iv, 0, encryptedWithIv, 0, IV_LENGTH);
             System.arraycopy(encryptedBytes, 0, encryptedWithIv, IV_LENGTH, encryptedBytes.length);
             
-            return Base64.encodeBase64String(encryptedWithIv);
+            return encryptedWithIv;
         } catch (Exception e) {
             throw new RuntimeException("Encryption failed", e);
         }
     }
     
+    /**
+     * Decrypt IV + ciphertext produced by {@link #encrypt(byte[])}
+     */
+    public byte[] decrypt(byte[] encryptedWithIv) {
+        ByteBuffer output = ByteBuffer.allocate(getMaxDecryptedLength(encryptedWithIv.length));
+        int length = decrypt(encryptedWithIv, output);
+        return length == output.capacity() ? output.array() : Arrays.copyOf(output.array(), length);
+    }
+    
     public String decrypt(String encryptedText) {
         try {
             byte[] encryptedWithIv = Base64.decodeBase64(encryptedText);
@@ -63,7 +86,7 @@ public class EncryptionUtil {
             byte[] encryptedBytes = new byte[encryptedWithIv.length - IV_LENGTH];
             System.arraycopy(encryptedWithIv, IV_LENGTH, encryptedBytes, 0, encryptedBytes.length);
             
-            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            Cipher cipher = cryptoProviderSelector.createCipher();
             cipher.init(Cipher.DECRYPT_MODE, getSecretKey(), ivSpec);
             byte[] decryptedBytes = cipher.doFinal(encryptedBytes);
             return new String(decryptedBytes, StandardCharsets.UTF_8);
@@ -71,4 +94,45 @@ public class EncryptionUtil {
             throw new RuntimeException("Decryption failed", e);
         }
     }
+    
+    /**
+     * Upper bound of the plaintext size for IV + ciphertext of the given length.
+     * CBC decryption never produces more bytes than it consumes.
+     */
+    public int getMaxDecryptedLength(int encryptedWithIvLength) {
+        return Math.max(0, encryptedWithIvLength - IV_LENGTH);
+    }
+    
+    /**
+     * Decrypt IV + ciphertext straight into the given buffer, starting at its position.
+     * The buffer needs at least {@link #getMaxDecryptedLength(int)} bytes remaining.
+     * 
+     * @return number of plaintext bytes written
+     */
+    public int decrypt(byte[] encryptedWithIv, ByteBuffer output) {
+        if (encryptedWithIv.length < IV_LENGTH) {
+            throw new RuntimeException("Decryption failed: payload shorter than IV");
+        }
+        try {
+            Cipher cipher = createDecryptCipher(encryptedWithIv);
+            ByteBuffer input = ByteBuffer.wrap(encryptedWithIv, IV_LENGTH, encryptedWithIv.length - IV_LENGTH);
+            return cipher.doFinal(input, output);
+        } catch (Exception e) {
+            throw new RuntimeException("Decryption failed", e);
+        }
+    }
+    
+    /**
+     * Cipher ready to decrypt the ciphertext that follows the IV in the first bytes of the given array,
+     * for callers that feed the payload incrementally with update/doFinal
+     */
+    public Cipher createDecryptCipher(byte[] iv) throws GeneralSecurityException {
+        Cipher cipher = cryptoProviderSelector.createCipher();
+        cipher.init(Cipher.DECRYPT_MODE, getSecretKey(), new IvParameterSpec(iv, 0, IV_LENGTH));
+        return cipher;
+    }
+    
+    public int getIvLength() {
+        return IV_LENGTH;
+    }
 }
@@ -0,0 +1,231 @@
+package com.example.encryptiondemo.crypto;
+
+import com.example.encryptiondemo.config.EncryptionProperties;
+import com.example.encryptiondemo.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.CipherSpi;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.NoSuchAlgorithmException;
+import java.security.Provider;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CryptoProviderSelectorTest {
+
+    private EncryptionProperties encryptionProperties;
+
+    @BeforeEach
+    void setUp() {
+        encryptionProperties = new EncryptionProperties();
+        encryptionProperties.setProviderWarmupMillis(20);
+        encryptionProperties.setProviderBenchmarkMillis(60);
+        encryptionProperties.setProviderBenchmarkRounds(3);
+    }
+
+    @Test
+    void providerFailingTheKnownAnswerTestIsRejected() throws GeneralSecurityException {
+        CryptoProviderSelector selector = select(new TestProvider("BrokenAES", true, 0));
+
+        ProviderBenchmarkResult broken = result(selector, "BrokenAES");
+        assertFalse(broken.isKnownAnswerTestPassed());
+        assertTrue(broken.getError().contains("known-answer test failed"));
+        assertNotEquals("BrokenAES", selector.getSelectedProvider().getName());
+        assertEquals(EncryptionUtil.TRANSFORMATION, selector.createCipher().getAlgorithm());
+    }
+
+    @Test
+    void pinnedProviderIsUsedWithoutBenchmark() {
+        encryptionProperties.setProvider("slowaes");
+
+        CryptoProviderSelector selector = select(new TestProvider("SlowAES", false, 200_000));
+
+        assertEquals("SlowAES", selector.getSelectedProvider().getName());
+        assertTrue(result(selector, "SlowAES").isKnownAnswerTestPassed());
+        for (ProviderBenchmarkResult result : selector.getResults()) {
+            assertEquals(0, result.getRounds(), result.getProvider() + " was benchmarked");
+        }
+    }
+
+    @Test
+    void unavailablePinnedProviderFallsBackToTheFastest() {
+        encryptionProperties.setProvider("NoSuchProvider");
+
+        CryptoProviderSelector selector = select(new TestProvider("SlowAES", false, 200_000));
+
+        ProviderBenchmarkResult slow = result(selector, "SlowAES");
+        assertEquals(3, slow.getRounds());
+        ProviderBenchmarkResult fastest = selector.getResults().stream()
+            .filter(ProviderBenchmarkResult::isKnownAnswerTestPassed)
+            .max(Comparator.comparingDouble(ProviderBenchmarkResult::getOperationsPerSecond))
+            .orElseThrow();
+        assertNotEquals("SlowAES", fastest.getProvider());
+        assertEquals(fastest.getProvider(), selector.getSelectedProvider().getName());
+    }
+
+    private CryptoProviderSelector select(CryptoProviderCandidate... candidates) {
+        CryptoProviderSelector selector = new CryptoProviderSelector();
+        ReflectionTestUtils.setField(selector, "encryptionProperties", encryptionProperties);
+        ReflectionTestUtils.setField(selector, "candidateBeans", List.of(candidates));
+        selector.selectProvider();
+        return selector;
+    }
+
+    private static ProviderBenchmarkResult result(CryptoProviderSelector selector, String provider) {
+        return selector.getResults().stream()
+            .filter(result -> result.getProvider().equals(provider))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError(provider + " was not considered"));
+    }
+
+    /**
+     * Candidate offering AES through {@link TestCipherSpi}, optionally corrupting ciphertext or slowed down
+     */
+    private static class TestProvider extends Provider implements CryptoProviderCandidate {
+
+        TestProvider(String name, boolean corrupt, long delayNanos) {
+            super(name, "1.0", "AES for CryptoProviderSelectorTest");
+            putService(new Service(this, "Cipher", "AES", TestCipherSpi.class.getName(), null, null) {
+                @Override
+                public Object newInstance(Object constructorParameter) {
+                    return new TestCipherSpi(corrupt, delayNanos);
+                }
+            });
+        }
+
+        @Override
+        public Provider getProvider() {
+            return this;
+        }
+    }
+
+    /**
+     * AES/CBC/PKCS5Padding from the JCE default, with a flipped first ciphertext byte or a delay on each doFinal
+     */
+    private static class TestCipherSpi extends CipherSpi {
+
+        private final boolean corrupt;
+        private final long delayNanos;
+        private final Cipher delegate;
+        private int mode;
+
+        TestCipherSpi(boolean corrupt, long delayNanos) {
+            this.corrupt = corrupt;
+            this.delayNanos = delayNanos;
+            try {
+                this.delegate = Cipher.getInstance(EncryptionUtil.TRANSFORMATION);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        protected void engineSetMode(String mode) throws NoSuchAlgorithmException {
+            if (!"CBC".equalsIgnoreCase(mode)) {
+                throw new NoSuchAlgorithmException(mode);
+            }
+        }
+
+        @Override
+        protected void engineSetPadding(String padding) throws NoSuchPaddingException {
+            if (!"PKCS5Padding".equalsIgnoreCase(padding)) {
+                throw new NoSuchPaddingException(padding);
+            }
+        }
+
+        @Override
+        protected int engineGetBlockSize() {
+            return delegate.getBlockSize();
+        }
+
+        @Override
+        protected int engineGetOutputSize(int inputLen) {
+            return delegate.getOutputSize(inputLen);
+        }
+
+        @Override
+        protected byte[] engineGetIV() {
+            return delegate.getIV();
+        }
+
+        @Override
+        protected AlgorithmParameters engineGetParameters() {
+            return delegate.getParameters();
+        }
+
+        @Override
+        protected void engineInit(int opmode, Key key, SecureRandom random) throws InvalidKeyException {
+            mode = opmode;
+            delegate.init(opmode, key, random);
+        }
+
+        @Override
+        protected void engineInit(int opmode, Key key, AlgorithmParameterSpec params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+            mode = opmode;
+            delegate.init(opmode, key, params, random);
+        }
+
+        @Override
+        protected void engineInit(int opmode, Key key, AlgorithmParameters params, SecureRandom random)
+            throws InvalidKeyException, InvalidAlgorithmParameterException {
+            mode = opmode;
+            delegate.init(opmode, key, params, random);
+        }
+
+        @Override
+        protected byte[] engineUpdate(byte[] input, int inputOffset, int inputLen) {
+            return delegate.update(input, inputOffset, inputLen);
+        }
+
+        @Override
+        protected int engineUpdate(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException {
+            return delegate.update(input, inputOffset, inputLen, output, outputOffset);
+        }
+
+        @Override
+        protected byte[] engineDoFinal(byte[] input, int inputOffset, int inputLen)
+            throws IllegalBlockSizeException, BadPaddingException {
+            byte[] output = delegate.doFinal(input, inputOffset, inputLen);
+            finish(output, 0);
+            return output;
+        }
+
+        @Override
+        protected int engineDoFinal(byte[] input, int inputOffset, int inputLen, byte[] output, int outputOffset)
+            throws ShortBufferException, IllegalBlockSizeException, BadPaddingException {
+            int length = delegate.doFinal(input, inputOffset, inputLen, output, outputOffset);
+            finish(output, outputOffset);
+            return length;
+        }
+
+        private void finish(byte[] output, int offset) {
+            if (corrupt && mode == Cipher.ENCRYPT_MODE) {
+                output[offset] ^= 1;
+            }
+            if (delayNanos > 0) {
+                LockSupport.parkNanos(delayNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.encryptiondemo.filter;
+
+import com.example.encryptiondemo.config.EncryptionProperties;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BodyBufferPoolTest {
+
+    private static final int BUFFER_SIZE = 64;
+
+    @Test
+    void smallRequestsGetAPooledBufferOfTheConfiguredSize() {
+        BodyBufferPool pool = pool(2, false);
+
+        ByteBuffer buffer = pool.acquire(10);
+        assertEquals(BUFFER_SIZE, buffer.capacity());
+        assertEquals(0, buffer.position());
+        assertEquals(BUFFER_SIZE, buffer.limit());
+        assertFalse(buffer.isDirect());
+
+        buffer.put(new byte[] {1, 2, 3}).flip();
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire(BUFFER_SIZE);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(BUFFER_SIZE, reused.limit());
+    }
+
+    @Test
+    void oversizedBuffersAreNotPooled() {
+        BodyBufferPool pool = pool(2, false);
+
+        ByteBuffer large = pool.acquire(BUFFER_SIZE + 1);
+        assertEquals(BUFFER_SIZE + 1, large.capacity());
+        pool.release(large);
+
+        ByteBuffer next = pool.acquire(BUFFER_SIZE + 1);
+        assertNotSame(large, next);
+        ByteBuffer small = pool.acquire(0);
+        assertNotSame(large, small);
+        assertEquals(BUFFER_SIZE, small.capacity());
+    }
+
+    @Test
+    void buffersOfTheWrongKindAreNotPooled() {
+        BodyBufferPool pool = pool(2, false);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        pool.release(direct);
+        pool.release(null);
+
+        assertNotSame(direct, pool.acquire(0));
+    }
+
+    @Test
+    void releasesBeyondThePoolSizeAreDropped() {
+        BodyBufferPool pool = pool(1, false);
+
+        ByteBuffer first = pool.acquire(0);
+        ByteBuffer second = pool.acquire(0);
+        pool.release(first);
+        pool.release(second);
+
+        assertSame(first, pool.acquire(0));
+        assertNotSame(second, pool.acquire(0));
+    }
+
+    @Test
+    void directBuffersWhenConfigured() {
+        BodyBufferPool pool = pool(2, true);
+
+        ByteBuffer buffer = pool.acquire(0);
+        assertTrue(buffer.isDirect());
+        assertTrue(pool.acquire(BUFFER_SIZE * 2).isDirect());
+
+        pool.release(buffer);
+        assertSame(buffer, pool.acquire(0));
+    }
+
+    private static BodyBufferPool pool(int poolSize, boolean direct) {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setBufferSize(BUFFER_SIZE);
+        properties.setBufferPoolSize(poolSize);
+        properties.setDirectBuffers(direct);
+        return new BodyBufferPool(properties);
+    }
+}
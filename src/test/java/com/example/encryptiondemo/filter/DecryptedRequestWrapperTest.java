@@ -0,0 +1,162 @@
+package com.example.encryptiondemo.filter;
+
+import com.example.encryptiondemo.config.EncryptionProperties;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecryptedRequestWrapperTest {
+
+    private static final String BODY = "{\"name\":\"Zoë\",\"email\":\"zoe@example.com\"}";
+
+    private BodyBufferPool pool;
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        EncryptionProperties properties = new EncryptionProperties();
+        properties.setBufferSize(256);
+        properties.setBufferPoolSize(4);
+        pool = new BodyBufferPool(properties);
+
+        request = new MockHttpServletRequest("POST", "/api/user");
+        // Length of the encrypted Base64 body the client actually sent
+        request.addHeader("Content-Length", "108");
+        request.addHeader("Content-Type", "application/json");
+    }
+
+    @Test
+    void bulkReadsReturnTheBodyInChunks() throws IOException {
+        byte[] expected = BODY.getBytes(StandardCharsets.UTF_8);
+        ServletInputStream stream = wrap(BODY).getInputStream();
+
+        byte[] actual = new byte[expected.length];
+        assertEquals(0, stream.read(actual, 0, 0));
+        assertEquals(10, stream.read(actual, 0, 10));
+        assertEquals(expected.length - 10, stream.read(actual, 10, actual.length));
+        assertEquals(-1, stream.read(actual, 0, actual.length));
+        assertEquals(-1, stream.read());
+        assertTrue(stream.isFinished());
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    void readAllBytesReturnsWhatIsLeft() throws IOException {
+        byte[] expected = BODY.getBytes(StandardCharsets.UTF_8);
+        ServletInputStream stream = wrap(BODY).getInputStream();
+
+        assertEquals('{', stream.read());
+        assertEquals(expected.length - 1, stream.available());
+        byte[] rest = stream.readAllBytes();
+        assertEquals(expected.length - 1, rest.length);
+        assertEquals(BODY.substring(1), new String(rest, StandardCharsets.UTF_8));
+        assertEquals(0, stream.readAllBytes().length);
+    }
+
+    @Test
+    void skipStopsAtTheEndOfTheBody() throws IOException {
+        ServletInputStream stream = wrap("0123456789").getInputStream();
+
+        assertEquals(0, stream.skip(-1));
+        assertEquals(4, stream.skip(4));
+        assertEquals('4', stream.read());
+        assertEquals(5, stream.skip(100));
+        assertEquals(0, stream.skip(1));
+        assertEquals(-1, stream.read());
+    }
+
+    @Test
+    void readerDecodesUtf8WhateverTheRequestDeclares() throws IOException {
+        request.setCharacterEncoding("ISO-8859-1");
+        DecryptedRequestWrapper wrapper = wrap(BODY);
+
+        assertEquals(BODY, wrapper.getReader().readLine());
+        assertSame(wrapper.getReader(), wrapper.getReader());
+    }
+
+    @Test
+    void inputStreamAndReaderAreMutuallyExclusive() throws IOException {
+        DecryptedRequestWrapper streamFirst = wrap(BODY);
+        assertSame(streamFirst.getInputStream(), streamFirst.getInputStream());
+        assertThrows(IllegalStateException.class, streamFirst::getReader);
+
+        DecryptedRequestWrapper readerFirst = wrap(BODY);
+        readerFirst.getReader();
+        assertThrows(IllegalStateException.class, readerFirst::getInputStream);
+    }
+
+    @Test
+    void contentLengthIsTheDecryptedLength() {
+        int decryptedLength = BODY.getBytes(StandardCharsets.UTF_8).length;
+        DecryptedRequestWrapper wrapper = wrap(BODY);
+
+        assertEquals(decryptedLength, wrapper.getContentLength());
+        assertEquals(decryptedLength, wrapper.getContentLengthLong());
+        assertEquals(String.valueOf(decryptedLength), wrapper.getHeader("Content-Length"));
+        assertEquals(String.valueOf(decryptedLength), wrapper.getHeader("content-length"));
+        assertEquals(decryptedLength, wrapper.getIntHeader("Content-Length"));
+        assertEquals(List.of(String.valueOf(decryptedLength)), Collections.list(wrapper.getHeaders("Content-Length")));
+        assertEquals("application/json", wrapper.getHeader("Content-Type"));
+    }
+
+    @Test
+    void syncRequestReleasesTheBufferOnce() throws IOException {
+        ByteBuffer body = bodyBuffer(BODY);
+        DecryptedRequestWrapper wrapper = new DecryptedRequestWrapper(request, body, pool);
+        ServletInputStream stream = wrapper.getInputStream();
+
+        wrapper.releaseWhenComplete();
+        wrapper.releaseWhenComplete();
+
+        assertThrows(IOException.class, stream::read);
+        assertEquals(0, stream.available());
+        // Pooled exactly once: a second acquire must not hand out the same buffer again
+        assertSame(body, pool.acquire(0));
+        assertNotSame(body, pool.acquire(0));
+    }
+
+    @Test
+    void asyncRequestReleasesTheBufferOnlyOnComplete() throws IOException {
+        request.setAsyncSupported(true);
+        request.startAsync();
+        ByteBuffer body = bodyBuffer(BODY);
+        DecryptedRequestWrapper wrapper = new DecryptedRequestWrapper(request, body, pool);
+
+        wrapper.releaseWhenComplete();
+
+        // Still owned by the request, an async handler may read it later
+        assertEquals(BODY, new String(wrapper.getInputStream().readAllBytes(), StandardCharsets.UTF_8));
+        ByteBuffer other = pool.acquire(0);
+        assertNotSame(body, other);
+
+        request.getAsyncContext().complete();
+        wrapper.releaseWhenComplete();
+
+        assertSame(body, pool.acquire(0));
+        assertNotSame(body, pool.acquire(0));
+    }
+
+    private DecryptedRequestWrapper wrap(String content) {
+        return new DecryptedRequestWrapper(request, bodyBuffer(content), pool);
+    }
+
+    private ByteBuffer bodyBuffer(String content) {
+        ByteBuffer buffer = pool.acquire(0);
+        buffer.put(content.getBytes(StandardCharsets.UTF_8)).flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.encryptiondemo.filter;
+
+import com.example.encryptiondemo.config.EncryptionProperties;
+import com.example.encryptiondemo.service.KeyManagementService;
+import com.example.encryptiondemo.util.EncryptionUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.binary.Base64;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the non-blocking decryption path through a real Tomcat, which MockMvc cannot do:
+ * its request stream does not support ReadListener
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "app.encryption.max-body-size=8192",
+    "app.encryption.buffer-size=1024"
+})
+class EncryptionFilterIntegrationTest {
+
+    private static final int MAX_BODY_SIZE = 8192;
+
+    @DynamicPropertySource
+    static void storeDirectory(DynamicPropertyRegistry registry) throws IOException {
+        String directory = Files.createTempDirectory("encryption-filter-test").toString();
+        registry.add("app.store.directory", () -> directory);
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private EncryptionUtil encryptionUtil;
+
+    @Autowired
+    private KeyManagementService keyManagementService;
+
+    @Autowired
+    private EncryptionProperties encryptionProperties;
+
+    @Autowired
+    private TrackingBodyBufferPool bufferPool;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @AfterEach
+    void everyBufferIsReleasedExactlyOnce() throws InterruptedException {
+        // Buffers go back when the async cycle completes, which may trail the response slightly
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (bufferPool.getOutstanding() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bufferPool.getOutstanding(), "buffers never released");
+        assertEquals(0, bufferPool.getUnexpectedReleases(), "buffers released twice or never acquired");
+    }
+
+    @Test
+    void decryptsChunkedBody() throws Exception {
+        // Large enough to arrive over several onDataAvailable calls and outgrow the initial pooled buffer
+        String name = "x".repeat(3000);
+        byte[] encrypted = encrypt("{\"name\":\"" + name + "\",\"email\":\"chunked@example.com\",\"message\":\"hi\"}");
+        HttpRequest request = post("/api/user")
+            .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(encrypted)))
+            .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        JsonNode user = objectMapper.readTree(response.body()).path("data").path("user");
+        assertEquals(name, user.path("name").asText());
+        assertEquals("chunked@example.com", user.path("email").asText());
+    }
+
+    @Test
+    void rejectsDeclaredLengthOverMaximum() throws Exception {
+        HttpResponse<String> response = send("/api/user", "A".repeat(MAX_BODY_SIZE + 1).getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(413, response.statusCode());
+        assertEquals("Request body too large", objectMapper.readTree(response.body()).path("message").asText());
+    }
+
+    @Test
+    void rejectsChunkedBodyOnceItGrowsOverMaximum() throws Exception {
+        byte[] encrypted = encrypt("{\"name\":\"" + "y".repeat(MAX_BODY_SIZE) + "\"}");
+        HttpRequest request = post("/api/user")
+            .POST(HttpRequest.BodyPublishers.ofInputStream(() -> new ByteArrayInputStream(encrypted)))
+            .build();
+
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    void rejectsBodyThatIsNotBase64() throws Exception {
+        HttpResponse<String> response = send("/api/user", "!!! definitely not base64 !!!".getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(400, response.statusCode());
+        assertEquals("Decryption failed", objectMapper.readTree(response.body()).path("message").asText());
+    }
+
+    @Test
+    void rejectsBodyWithBadPadding() throws Exception {
+        // One block of zeros encrypted without padding: decrypts to a final pad byte of 0, never valid PKCS5
+        byte[] iv = new byte[16];
+        Cipher cipher = Cipher.getInstance("AES/CBC/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(Base64.decodeBase64(keyManagementService.getCurrentKey()), "AES"),
+            new IvParameterSpec(iv));
+        byte[] ciphertext = cipher.doFinal(new byte[16]);
+        byte[] encryptedWithIv = ByteBuffer.allocate(32).put(iv).put(ciphertext).array();
+
+        HttpResponse<String> response = send("/api/user", Base64.encodeBase64(encryptedWithIv));
+
+        assertEquals(400, response.statusCode());
+        assertEquals("Decryption failed", objectMapper.readTree(response.body()).path("message").asText());
+    }
+
+    @Test
+    void rejectsTruncatedCiphertext() throws Exception {
+        byte[] encryptedWithIv = Base64.decodeBase64(encrypt("{\"name\":\"truncated\"}"));
+        byte[] truncated = Arrays.copyOf(encryptedWithIv, encryptedWithIv.length - 5);
+
+        HttpResponse<String> response = send("/api/user", Base64.encodeBase64(truncated));
+
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void emptyBodyReachesTheControllerAsMissingBody() throws Exception {
+        HttpResponse<String> response = send("/api/user", new byte[0]);
+
+        // Spring's missing-body 400, not a 500 from reading a non-blocking stream
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    void asyncControllerReadsDecryptedBody() throws Exception {
+        byte[] encrypted = encrypt("{\"name\":\"Async\",\"email\":\"async@example.com\",\"message\":\"later\"}");
+
+        HttpResponse<String> response = send("/api/user/async", encrypted);
+
+        assertEquals(200, response.statusCode());
+        JsonNode body = objectMapper.readTree(response.body());
+        assertTrue(body.path("success").asBoolean());
+        assertEquals("User created asynchronously!", body.path("message").asText());
+        long id = body.path("data").path("user").path("id").asLong();
+
+        HttpResponse<String> users = httpClient.send(HttpRequest.newBuilder(uri("/api/users")).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        boolean found = false;
+        for (JsonNode user : objectMapper.readTree(users.body()).path("data")) {
+            if (user.path("id").asLong() == id) {
+                assertEquals("async@example.com", user.path("email").asText());
+                found = true;
+            }
+        }
+        assertTrue(found, "created user is listed");
+    }
+
+    @Test
+    void blockingPathDecryptsAndEnforcesMaximum() throws Exception {
+        encryptionProperties.setNonBlocking(false);
+        try {
+            HttpResponse<String> response = send("/api/user", encrypt("{\"name\":\"Blocking\",\"email\":\"b@example.com\"}"));
+            assertEquals(200, response.statusCode());
+            assertEquals("Blocking", objectMapper.readTree(response.body()).path("data").path("user").path("name").asText());
+
+            HttpResponse<String> tooLarge = send("/api/user", "A".repeat(MAX_BODY_SIZE + 1).getBytes(StandardCharsets.US_ASCII));
+            assertEquals(413, tooLarge.statusCode());
+        } finally {
+            encryptionProperties.setNonBlocking(true);
+        }
+    }
+
+    private HttpResponse<String> send(String path, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = post(path).POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest.Builder post(String path) {
+        return HttpRequest.newBuilder(uri(path)).header("Content-Type", "application/json");
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private byte[] encrypt(String json) {
+        return encryptionUtil.encrypt(json).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Pool that tracks every buffer it hands out, so a test can tell a leaked or doubly released buffer
+     */
+    static class TrackingBodyBufferPool extends BodyBufferPool {
+
+        private final Set<ByteBuffer> outstanding = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final AtomicInteger unexpectedReleases = new AtomicInteger();
+
+        TrackingBodyBufferPool(EncryptionProperties encryptionProperties) {
+            super(encryptionProperties);
+        }
+
+        @Override
+        public ByteBuffer acquire(int capacity) {
+            ByteBuffer buffer = super.acquire(capacity);
+            synchronized (outstanding) {
+                outstanding.add(buffer);
+            }
+            return buffer;
+        }
+
+        @Override
+        public void release(ByteBuffer buffer) {
+            if (buffer != null) {
+                synchronized (outstanding) {
+                    if (!outstanding.remove(buffer)) {
+                        unexpectedReleases.incrementAndGet();
+                    }
+                }
+            }
+            super.release(buffer);
+        }
+
+        int getOutstanding() {
+            synchronized (outstanding) {
+                return outstanding.size();
+            }
+        }
+
+        int getUnexpectedReleases() {
+            return unexpectedReleases.get();
+        }
+    }
+
+    @TestConfiguration
+    static class TrackingPoolConfig {
+
+        @Bean
+        @Primary
+        TrackingBodyBufferPool trackingBodyBufferPool(EncryptionProperties encryptionProperties) {
+            return new TrackingBodyBufferPool(encryptionProperties);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.encryptiondemo.store;
+
+import com.example.encryptiondemo.crypto.CryptoProviderSelector;
+import com.example.encryptiondemo.service.KeyManagementService;
+import com.example.encryptiondemo.util.EncryptionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EncryptedRecordStoreTest {
+
+    // Values shorter than one AES block encrypt to 32 bytes (IV + one block), so a record takes 49 bytes
+    // and a tombstone 17: five records fill a segment
+    private static final int SMALL_SEGMENT_SIZE = 256;
+    private static final int LARGE_SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private EncryptionUtil encryptionUtil;
+
+    @BeforeEach
+    void setUp() {
+        KeyManagementService keyManagementService = new KeyManagementService();
+        ReflectionTestUtils.setField(keyManagementService, "encryptionKey", "VRYnbfWvjr0j4K9iZDnvjQ==");
+        encryptionUtil = new EncryptionUtil();
+        ReflectionTestUtils.setField(encryptionUtil, "keyManagementService", keyManagementService);
+        // No provider selected, ciphers come from the JCE default lookup
+        ReflectionTestUtils.setField(encryptionUtil, "cryptoProviderSelector", new CryptoProviderSelector());
+    }
+
+    @Test
+    void insertUpdateAndDeleteSurviveReopen() throws IOException {
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertEquals(1, add(store, "alice"));
+            assertEquals(2, add(store, "bob"));
+            assertTrue(store.update(1, bytes("alice v2")));
+            assertTrue(store.delete(2));
+            assertFalse(store.delete(2));
+            assertFalse(store.delete(3));
+
+            assertArrayEquals(bytes("alice v2"), store.get(1));
+            assertNull(store.get(2));
+            assertEquals(1, store.size());
+        }
+
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertArrayEquals(bytes("alice v2"), store.get(1));
+            assertNull(store.get(2));
+            assertEquals(List.of(1L), new ArrayList<>(store.getAll().keySet()));
+        }
+    }
+
+    @Test
+    void recordsAreEncryptedOnDisk() throws IOException {
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            add(store, "plaintext-marker");
+        }
+
+        RecordLocation last = lastRecord(LARGE_SEGMENT_SIZE);
+        byte[] stored = readFile(last.getSegment().getPath(), last.getOffset(), last.getSize());
+        assertFalse(new String(stored, StandardCharsets.ISO_8859_1).contains("plaintext-marker"));
+    }
+
+    @Test
+    void reopenDiscardsRecordWithBadChecksum() throws IOException {
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            add(store, "one");
+            add(store, "two");
+            add(store, "three");
+        }
+
+        // Flip a byte in the value of the last record, as if the crash tore it
+        RecordLocation last = lastRecord(LARGE_SEGMENT_SIZE);
+        int position = last.getOffset() + last.getSize() - 1;
+        byte[] original = readFile(last.getSegment().getPath(), position, 1);
+        writeFile(last.getSegment().getPath(), position, new byte[] {(byte) ~original[0]});
+
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertArrayEquals(bytes("one"), store.get(1));
+            assertArrayEquals(bytes("two"), store.get(2));
+            assertNull(store.get(3));
+            // The torn record never reached disk, so its id was never handed out as far as the store is concerned
+            assertEquals(3, add(store, "three again"));
+        }
+
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertEquals(List.of(1L, 2L, 3L), new ArrayList<>(store.getAll().keySet()));
+            assertArrayEquals(bytes("three again"), store.get(3));
+        }
+    }
+
+    @Test
+    void reopenDiscardsTruncatedRecord() throws IOException {
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            add(store, "one");
+            add(store, "two");
+        }
+
+        // A length header whose payload never made it to disk
+        RecordLocation last = lastRecord(LARGE_SEGMENT_SIZE);
+        writeFile(last.getSegment().getPath(), last.getOffset() + last.getSize(), ByteBuffer.allocate(4).putInt(100).array());
+
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertEquals(2, store.size());
+            assertEquals(3, add(store, "three"));
+        }
+
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertEquals(List.of(1L, 2L, 3L), new ArrayList<>(store.getAll().keySet()));
+            assertArrayEquals(bytes("three"), store.get(3));
+        }
+    }
+
+    @Test
+    void compactionKeepsLiveRecordsAndDoesNotResurrectDeletedOnes() throws IOException {
+        try (EncryptedRecordStore store = open(SMALL_SEGMENT_SIZE)) {
+            // Segment 1: ids 1-5, only id 1 is deleted later so it stays below the threshold
+            for (long id = 1; id <= 5; id++) {
+                assertEquals(id, add(store, "v" + id));
+            }
+            // Segment 2: the tombstone for id 1 and mostly overwritten versions of id 6
+            assertTrue(store.delete(1));
+            assertEquals(6, add(store, "v6.1"));
+            for (int version = 2; version <= 4; version++) {
+                assertTrue(store.update(6, bytes("v6." + version)));
+            }
+            assertEquals(7, add(store, "v7"));
+
+            assertEquals(1, store.compact(0.5));
+            assertNull(store.get(1));
+            assertArrayEquals(bytes("v6.4"), store.get(6));
+        }
+
+        try (EncryptedRecordStore store = open(SMALL_SEGMENT_SIZE)) {
+            assertNull(store.get(1));
+            assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L), new ArrayList<>(store.getAll().keySet()));
+            assertArrayEquals(bytes("v6.4"), store.get(6));
+
+            // Compacting everything, segment 1 included, drops the tombstone once nothing older needs it
+            store.compact(0);
+            store.compact(0);
+            assertNull(store.get(1));
+            assertEquals(6, store.size());
+        }
+
+        assertFalse(containsRecord(SegmentLog.DELETE, 1));
+        try (EncryptedRecordStore store = open(SMALL_SEGMENT_SIZE)) {
+            assertNull(store.get(1));
+            assertEquals(List.of(2L, 3L, 4L, 5L, 6L, 7L), new ArrayList<>(store.getAll().keySet()));
+            for (long id = 2; id <= 5; id++) {
+                assertArrayEquals(bytes("v" + id), store.get(id));
+            }
+        }
+    }
+
+    @Test
+    void nextIdIsNotReusedAfterCompactionAndRestart() throws IOException {
+        try (EncryptedRecordStore store = open(SMALL_SEGMENT_SIZE)) {
+            for (int i = 1; i <= 3; i++) {
+                add(store, "v" + i);
+            }
+            // Delete the newest record, then push segment 1 over the threshold and seal it
+            assertTrue(store.delete(3));
+            assertTrue(store.update(1, bytes("v1.2")));
+            assertTrue(store.update(1, bytes("v1.3")));
+
+            assertEquals(1, store.compact(0.5));
+        }
+
+        assertFalse(containsRecord(SegmentLog.PUT, 3));
+        try (EncryptedRecordStore store = open(SMALL_SEGMENT_SIZE)) {
+            assertEquals(4, store.nextId());
+        }
+    }
+
+    @Test
+    void updateNeverCreatesRecordsOrMovesTheAllocator() throws IOException {
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertEquals(1, add(store, "one"));
+
+            assertFalse(store.update(2, bytes("two")));
+            assertFalse(store.update(EncryptedRecordStore.MAX_ID, bytes("last")));
+            assertEquals(1, store.size());
+            assertEquals(2, store.nextId());
+        }
+
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertEquals(List.of(1L), new ArrayList<>(store.getAll().keySet()));
+            assertEquals(2, add(store, "two"));
+        }
+    }
+
+    @Test
+    void rejectsIdsOutOfRange() throws IOException {
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertThrows(InvalidRecordIdException.class, () -> store.update(0, bytes("zero")));
+            assertThrows(InvalidRecordIdException.class, () -> store.update(-1, bytes("negative")));
+            assertThrows(InvalidRecordIdException.class, () -> store.update(Long.MAX_VALUE, bytes("max")));
+            assertThrows(InvalidRecordIdException.class, () -> store.get(0));
+            assertThrows(InvalidRecordIdException.class, () -> store.delete(EncryptedRecordStore.MAX_ID + 1));
+        }
+    }
+
+    @Test
+    void insertOnlyAcceptsFreshAllocatedIds() throws IOException {
+        try (EncryptedRecordStore store = open(LARGE_SEGMENT_SIZE)) {
+            assertThrows(IllegalArgumentException.class, () -> store.insert(1, bytes("unallocated")));
+
+            long id = add(store, "one");
+            assertThrows(IllegalArgumentException.class, () -> store.insert(id, bytes("again")));
+            assertThrows(IllegalArgumentException.class, () -> store.insert(id + 1, bytes("unallocated")));
+            assertArrayEquals(bytes("one"), store.get(id));
+            assertEquals(1, store.size());
+        }
+    }
+
+    private static long add(EncryptedRecordStore store, String value) {
+        long id = store.nextId();
+        store.insert(id, bytes(value));
+        return id;
+    }
+
+    private EncryptedRecordStore open(int segmentSize) throws IOException {
+        return new EncryptedRecordStore("test", directory, segmentSize, false, encryptionUtil);
+    }
+
+    /**
+     * Location of the last intact record on disk, found by replaying the log the way recovery does
+     */
+    private RecordLocation lastRecord(int segmentSize) throws IOException {
+        List<RecordLocation> locations = new ArrayList<>();
+        try (SegmentLog log = new SegmentLog(directory, segmentSize, false)) {
+            log.recover((location, type, id) -> locations.add(location));
+        }
+        return locations.get(locations.size() - 1);
+    }
+
+    private boolean containsRecord(byte recordType, long recordId) throws IOException {
+        List<Long> matches = new ArrayList<>();
+        try (SegmentLog log = new SegmentLog(directory, SMALL_SEGMENT_SIZE, false)) {
+            log.recover((location, type, id) -> {
+                if (type == recordType && id == recordId) {
+                    matches.add(id);
+                }
+            });
+        }
+        return !matches.isEmpty();
+    }
+
+    private static byte[] readFile(Path file, int position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.read(buffer, position);
+        }
+        return buffer.array();
+    }
+
+    private static void writeFile(Path file, int position, byte[] data) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(data), position);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}